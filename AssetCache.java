@@ -0,0 +1,306 @@
+package rbadia.voidspace.main;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import rbadia.voidspace.sounds.AudioEngine;
+
+/**
+ * A file holding the game's images and sounds already decoded, so that a launch doesn't
+ * decode them again.
+ * <p>
+ * The file starts with an index: a hash of the asset files the cache was built from, then
+ * the name, kind, size and offset of each asset. The pixels of the images, as ARGB ints,
+ * and the samples of the sounds follow it. Opening the cache only reads the index and
+ * memory-maps the rest, so an asset costs a bulk copy out of the mapping. A cache built
+ * from other asset files, or in another format, has another hash and isn't opened: the
+ * game then decodes the assets and writes the cache again.
+ */
+public class AssetCache {
+	// "VSAC", and the version of the format, part of the hash
+	private static final int MAGIC = 0x56534143;
+	private static final int VERSION = 1;
+
+	private static final byte IMAGE = 0;
+	private static final byte SOUND = 1;
+
+	private final MappedByteBuffer data;
+	private final Map<String, Entry> entries;
+
+	/**
+	 * Where an asset is in the data of the cache.
+	 */
+	private static class Entry {
+		final byte kind;
+		final int width;
+		final int height;
+		final long offset;
+
+		Entry(byte kind, int width, int height, long offset) {
+			this.kind = kind;
+			this.width = width;
+			this.height = height;
+			this.offset = offset;
+		}
+	}
+
+	private AssetCache(MappedByteBuffer data, Map<String, Entry> entries) {
+		this.data = data;
+		this.entries = entries;
+	}
+
+	/**
+	 * Returns where the cache is kept by default: in a folder of the user's home.
+	 * @return the cache file
+	 */
+	public static File getDefaultFile() {
+		return new File(new File(System.getProperty("user.home"), ".voidspace"), "assets.cache");
+	}
+
+	/**
+	 * Hashes the contents of the asset files a cache is built from, along with the format
+	 * of the cache and the sample rate the sounds are decoded to.
+	 * @param sources the locations of the asset files, null for a missing file
+	 * @return the hash
+	 * @throws IOException if a file can't be read
+	 */
+	public static byte[] hash(URL[] sources) throws IOException {
+		MessageDigest digest;
+		try{
+			digest = MessageDigest.getInstance("SHA-1");
+		}
+		catch(NoSuchAlgorithmException e){
+			throw new IllegalStateException(e);
+		}
+		ByteArrayOutputStream format = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(format);
+		out.writeInt(VERSION);
+		out.writeInt(AudioEngine.SAMPLE_RATE);
+		out.writeInt(sources.length);
+		digest.update(format.toByteArray());
+
+		byte[] buffer = new byte[8192];
+		for(URL source : sources){
+			if(source == null){
+				digest.update((byte) 0);
+				continue;
+			}
+			digest.update((byte) 1);
+			InputStream in = source.openStream();
+			try{
+				int read;
+				while((read = in.read(buffer)) > 0){
+					digest.update(buffer, 0, read);
+				}
+			}
+			finally{
+				in.close();
+			}
+		}
+		return digest.digest();
+	}
+
+	/**
+	 * Opens a cache, if it was built from the asset files of a hash.
+	 * @param file the cache file
+	 * @param hash the hash of the asset files, from {@link #hash(URL[])}
+	 * @return the cache, or null if there is no cache or it was built from other files
+	 * @throws IOException if the file can't be read
+	 */
+	public static AssetCache open(File file, byte[] hash) throws IOException {
+		if(!file.isFile()){
+			return null;
+		}
+		Map<String, Entry> entries = new HashMap<String, Entry>();
+		long dataStart;
+		DataInputStream in = new DataInputStream(new FileInputStream(file));
+		try{
+			if(in.readInt() != MAGIC){
+				return null;
+			}
+			byte[] cacheHash = new byte[in.readUnsignedShort()];
+			in.readFully(cacheHash);
+			if(!Arrays.equals(cacheHash, hash)){
+				return null;
+			}
+			int indexLength = in.readInt();
+			if(indexLength < 0 || indexLength > file.length()){
+				return null;
+			}
+			byte[] index = new byte[indexLength];
+			in.readFully(index);
+			dataStart = 4 + 2 + cacheHash.length + 4 + index.length;
+
+			DataInputStream indexIn = new DataInputStream(new ByteArrayInputStream(index));
+			int count = indexIn.readInt();
+			for(int i = 0; i < count; i++){
+				String name = indexIn.readUTF();
+				entries.put(name, new Entry(indexIn.readByte(), indexIn.readInt(), indexIn.readInt(), indexIn.readLong()));
+			}
+		}
+		catch(EOFException e){
+			// cut short while it was written
+			return null;
+		}
+		finally{
+			in.close();
+		}
+
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try{
+			long dataSize = raf.length() - dataStart;
+			for(Entry entry : entries.values()){
+				long size = (long) entry.width * entry.height * (entry.kind == IMAGE ? 4 : 2);
+				if(dataSize < 0 || entry.width < 0 || entry.height < 0 || entry.offset < 0 || entry.offset + size > dataSize){
+					return null;
+				}
+			}
+			// the mapping stays valid once the file is closed
+			return new AssetCache(raf.getChannel().map(FileChannel.MapMode.READ_ONLY, dataStart, dataSize), entries);
+		}
+		finally{
+			raf.close();
+		}
+	}
+
+	/**
+	 * Returns an image of the cache. May be called by any thread.
+	 * @param name the file name of the image
+	 * @return the image, or null if the cache doesn't hold it
+	 */
+	public BufferedImage getImage(String name) {
+		Entry entry = entries.get(name);
+		if(entry == null || entry.kind != IMAGE){
+			return null;
+		}
+		BufferedImage image = new BufferedImage(entry.width, entry.height, BufferedImage.TYPE_INT_ARGB);
+		int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		getData(entry).asIntBuffer().get(pixels);
+		return image;
+	}
+
+	/**
+	 * Returns the samples of a sound of the cache. May be called by any thread.
+	 * @param name the file name of the sound
+	 * @return the samples, or null if the cache doesn't hold them
+	 */
+	public short[] getSamples(String name) {
+		Entry entry = entries.get(name);
+		if(entry == null || entry.kind != SOUND){
+			return null;
+		}
+		short[] samples = new short[entry.width];
+		getData(entry).asShortBuffer().get(samples);
+		return samples;
+	}
+
+	/**
+	 * Returns a view of the mapping starting at an asset, of its own so threads don't share
+	 * a position.
+	 */
+	private ByteBuffer getData(Entry entry) {
+		ByteBuffer view = data.duplicate();
+		view.position((int) entry.offset);
+		return view;
+	}
+
+	/**
+	 * Writes a cache, replacing the one there was once it is complete.
+	 * @param file the cache file
+	 * @param hash the hash of the asset files, from {@link #hash(URL[])}
+	 * @param imageNames the file names of the images
+	 * @param images the images
+	 * @param soundNames the file names of the sounds
+	 * @param sounds the samples of the sounds, null for those that couldn't be loaded
+	 * @throws IOException if the file can't be written
+	 */
+	public static void write(File file, byte[] hash, String[] imageNames, BufferedImage[] images,
+			String[] soundNames, short[][] sounds) throws IOException {
+		// the index, with the offset of each asset from the start of the data
+		ByteArrayOutputStream index = new ByteArrayOutputStream();
+		DataOutputStream indexOut = new DataOutputStream(index);
+		int count = 0;
+		for(short[] samples : sounds){
+			count += samples != null ? 1 : 0;
+		}
+		indexOut.writeInt(images.length + count);
+		long offset = 0;
+		for(int i = 0; i < images.length; i++){
+			indexOut.writeUTF(imageNames[i]);
+			indexOut.writeByte(IMAGE);
+			indexOut.writeInt(images[i].getWidth());
+			indexOut.writeInt(images[i].getHeight());
+			indexOut.writeLong(offset);
+			offset += 4L * images[i].getWidth() * images[i].getHeight();
+		}
+		for(int i = 0; i < sounds.length; i++){
+			if(sounds[i] != null){
+				indexOut.writeUTF(soundNames[i]);
+				indexOut.writeByte(SOUND);
+				indexOut.writeInt(sounds[i].length);
+				indexOut.writeInt(1);
+				indexOut.writeLong(offset);
+				offset += 2L * sounds[i].length;
+			}
+		}
+
+		File folder = file.getAbsoluteFile().getParentFile();
+		if(!folder.isDirectory() && !folder.mkdirs()){
+			throw new IOException("Could not create " + folder);
+		}
+		File temp = File.createTempFile("assets", ".tmp", folder);
+		try{
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+			try{
+				out.writeInt(MAGIC);
+				out.writeShort(hash.length);
+				out.write(hash);
+				out.writeInt(index.size());
+				index.writeTo(out);
+				for(BufferedImage image : images){
+					int[] pixels = image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+					for(int pixel : pixels){
+						out.writeInt(pixel);
+					}
+				}
+				for(short[] samples : sounds){
+					if(samples != null){
+						for(short sample : samples){
+							out.writeShort(sample);
+						}
+					}
+				}
+			}
+			finally{
+				out.close();
+			}
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		finally{
+			temp.delete();
+		}
+	}
+}
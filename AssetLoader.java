@@ -0,0 +1,152 @@
+package rbadia.voidspace.main;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads the game's assets in parallel, on a few threads of its own, while the main thread
+ * shows that the game is loading.
+ * <p>
+ * Each asset is a task returning the decoded asset; {@link #load(String, Callable)} hands
+ * back its future right away. The loader counts the assets loaded, for a progress bar,
+ * and times each one, from the moment it was asked for, for the startup report.
+ */
+public class AssetLoader {
+	/** Default number of loading threads. */
+	public static final int DEFAULT_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+	private final ExecutorService executor;
+	private final long startTime = System.nanoTime();
+	private final AtomicInteger threadCount = new AtomicInteger();
+
+	// assets asked for and done, in the order they were asked for
+	private final List<Timing> timings = new ArrayList<Timing>();
+	private int doneCount;
+
+	/**
+	 * The times an asset took.
+	 */
+	private static class Timing {
+		final String name;
+		final long submitTime;
+		long startTime;
+		long endTime;
+		boolean failed;
+
+		Timing(String name, long submitTime) {
+			this.name = name;
+			this.submitTime = submitTime;
+		}
+	}
+
+	/**
+	 * Creates a new asset loader.
+	 * @param threads the number of loading threads
+	 */
+	public AssetLoader(int threads) {
+		executor = Executors.newFixedThreadPool(threads, new ThreadFactory(){
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "Asset loader " + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Starts loading an asset.
+	 * @param name the name of the asset, for the report
+	 * @param task the task that loads and decodes the asset
+	 * @return the future asset, which throws what the task threw
+	 */
+	public <T> Future<T> load(String name, final Callable<T> task) {
+		final Timing timing = new Timing(name, System.nanoTime());
+		synchronized(this){
+			timings.add(timing);
+		}
+		return executor.submit(new Callable<T>(){
+			public T call() throws Exception {
+				timing.startTime = System.nanoTime();
+				try{
+					return task.call();
+				}
+				catch(Exception e){
+					timing.failed = true;
+					throw e;
+				}
+				finally{
+					timing.endTime = System.nanoTime();
+					done();
+				}
+			}
+		});
+	}
+
+	private synchronized void done() {
+		doneCount++;
+		notifyAll();
+	}
+
+	/**
+	 * Returns the number of assets asked for.
+	 * @return the number of assets
+	 */
+	public synchronized int getAssetCount() {
+		return timings.size();
+	}
+
+	/**
+	 * Returns the number of assets done loading, whether they failed or not.
+	 * @return the number of assets done
+	 */
+	public synchronized int getDoneCount() {
+		return doneCount;
+	}
+
+	/**
+	 * Waits until all the assets asked for are done loading, or some time has passed.
+	 * @param millis the longest time to wait in milliseconds
+	 * @return true if all the assets are done
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	public synchronized boolean awaitDone(long millis) throws InterruptedException {
+		if(doneCount < timings.size()){
+			wait(millis);
+		}
+		return doneCount == timings.size();
+	}
+
+	/**
+	 * Stops the loading threads once the assets asked for are done.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	/**
+	 * Returns the times each asset done took: waiting for a thread, then loading.
+	 * @return the report, one line per asset
+	 */
+	public synchronized String getReport() {
+		StringBuilder report = new StringBuilder("Asset loading:");
+		long end = startTime;
+		for(Timing timing : timings){
+			if(timing.endTime == 0){
+				continue;
+			}
+			report.append(System.lineSeparator()).append(String.format("  %-24s waited %6.1f ms, loaded in %6.1f ms%s",
+					timing.name, (timing.startTime - timing.submitTime) / 1e6, (timing.endTime - timing.startTime) / 1e6,
+					timing.failed ? " (failed)" : ""));
+			end = Math.max(end, timing.endTime);
+		}
+		report.append(System.lineSeparator()).append(String.format("  all done %.1f ms after the loader started",
+				(end - startTime) / 1e6));
+		return report.toString();
+	}
+}
@@ -1,11 +1,8 @@
 package rbadia.voidspace.model;
 
-import java.awt.Rectangle;
-import java.util.Random;
+import java.util.SplittableRandom;
 
-import rbadia.voidspace.main.GameScreen;
-
-public class Asteroid extends Rectangle {
+public class Asteroid extends GameObject {
 	private static final long serialVersionUID = 1L;
 	
 	public static final int DEFAULT_SPEED = 4;
@@ -15,20 +12,20 @@ public class Asteroid extends Rectangle {
 	private int speed = DEFAULT_SPEED;
 	private int trajectory; 
 	private boolean destroyed = false;
-
-	private Random rand = new Random();
 	
 	
 	/**
 	 * Creates a new asteroid at a random x location at the top of the screen 
-	 * @param screen the game screen
+	 * @param playfield the playfield
+	 * @param rand the random stream for asteroid locations
 	 */
-	public Asteroid(GameScreen screen){
+	public Asteroid(Playfield playfield, SplittableRandom rand){
 		this.setLocation(
-        		rand.nextInt(screen.getWidth() - asteroidWidth),
+        		rand.nextInt(playfield.getWidth() - asteroidWidth),
         		0);
 		this.setSize(asteroidWidth, asteroidHeight);
 		this.setTrajectory(rand.nextInt(3));
+		this.savePosition();
 	}
 	
 	public int getAsteroidWidth() {
@@ -0,0 +1,294 @@
+package rbadia.voidspace.sounds;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Plays sound effects through a single audio line, mixed by one long-lived thread.
+ * <p>
+ * Sounds are decoded once, by {@link #read(URL)}, into 16 bit mono samples at the engine's
+ * sample rate, and added with {@link #add(short[])}. Playing a sound only adds a command to
+ * a lock-free {@link CommandQueue}; the mixer thread takes the commands at the start of each
+ * block of audio, starts a voice for each, adds up the voices and writes the block to the
+ * line, whose small buffer paces the thread.
+ * There is a fixed number of voices: when they are all busy, the one closest to its end is
+ * stolen for the new sound. A sound can also be limited to fewer voices, so that a burst of
+ * the same sound doesn't take all of them.
+ */
+public class AudioEngine {
+	/** Sample rate of the mix, in frames per second. */
+	public static final int SAMPLE_RATE = 22050;
+	/** Default number of sounds that can play at the same time. */
+	public static final int DEFAULT_VOICES = 8;
+
+	// frames mixed at a time, and blocks of them held by the line: about 12ms and 35ms
+	private static final int BLOCK_FRAMES = 256;
+	private static final int LINE_BLOCKS = 3;
+	private static final int QUEUE_CAPACITY = 64;
+	private static final int MAX_SOUNDS = 64;
+
+	private static final AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 16, 1, true, false);
+
+	private final CommandQueue commands = new CommandQueue(QUEUE_CAPACITY);
+
+	// loaded sounds
+	private final short[][] sounds = new short[MAX_SOUNDS][];
+	private final int[] maxVoices = new int[MAX_SOUNDS];
+	private int soundCount;
+
+	// voices: the sound each plays, or -1, and the next frame to play
+	private final int[] voiceSound;
+	private final int[] voicePosition;
+
+	private final int[] mix = new int[BLOCK_FRAMES];
+	private final byte[] block = new byte[BLOCK_FRAMES * 2];
+	private volatile SourceDataLine line;
+
+	/**
+	 * Creates an engine with the default number of voices.
+	 */
+	public AudioEngine() {
+		this(DEFAULT_VOICES);
+	}
+
+	/**
+	 * Creates an engine.
+	 * @param voices the number of sounds that can play at the same time
+	 */
+	public AudioEngine(int voices) {
+		if(voices < 1){
+			throw new IllegalArgumentException("Invalid number of voices: " + voices);
+		}
+		voiceSound = new int[voices];
+		voicePosition = new int[voices];
+		Arrays.fill(voiceSound, -1);
+	}
+
+	/**
+	 * Adds a sound already decoded by {@link #read(URL)}. Must be called before the engine
+	 * is started.
+	 * @param samples the samples of the sound
+	 * @return the id of the sound, to play it with
+	 */
+	public int add(short[] samples) {
+		if(soundCount == MAX_SOUNDS){
+			throw new IllegalStateException("Too many sounds: " + MAX_SOUNDS);
+		}
+		sounds[soundCount] = samples;
+		maxVoices[soundCount] = voiceSound.length;
+		return soundCount++;
+	}
+
+	/**
+	 * Reads and decodes a sound into samples the engine can play. May be called by any thread.
+	 * @param url the location of the sound file
+	 * @return the samples, 16 bit mono at the engine's sample rate
+	 * @throws IOException if the file can't be read
+	 * @throws UnsupportedAudioFileException if the file is not in a known audio format
+	 */
+	public static short[] read(URL url) throws IOException, UnsupportedAudioFileException {
+		AudioInputStream in = AudioSystem.getAudioInputStream(url);
+		try{
+			return decode(in);
+		}
+		finally{
+			in.close();
+		}
+	}
+
+	/**
+	 * Limits how many voices a sound may play on at the same time. Playing the sound when
+	 * it is at its limit starts it over on the voice of the copy closest to its end, instead
+	 * of taking a voice from another sound. Must be called before the engine is started.
+	 * @param sound the id of the sound
+	 * @param max the maximum number of voices, at least 1
+	 */
+	public void setMaxVoices(int sound, int max) {
+		if(sound < 0 || sound >= soundCount || max < 1){
+			throw new IllegalArgumentException("Invalid voice limit: sound=" + sound + ", max=" + max);
+		}
+		maxVoices[sound] = max;
+	}
+
+	/**
+	 * Decodes a sound into 16 bit mono samples at the engine's sample rate.
+	 */
+	private static short[] decode(AudioInputStream in) throws IOException {
+		AudioFormat source = in.getFormat();
+		AudioFormat pcm = new AudioFormat(source.getSampleRate(), 16, source.getChannels(), true, false);
+		AudioInputStream decoded = AudioSystem.getAudioInputStream(pcm, in);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int read;
+		while((read = decoded.read(buffer)) > 0){
+			bytes.write(buffer, 0, read);
+		}
+		byte[] data = bytes.toByteArray();
+
+		// down to one channel
+		int channels = pcm.getChannels();
+		int frames = data.length / (2 * channels);
+		short[] samples = new short[frames];
+		for(int f = 0; f < frames; f++){
+			int sum = 0;
+			for(int c = 0; c < channels; c++){
+				int i = 2 * (f * channels + c);
+				sum += (short) ((data[i] & 0xff) | (data[i + 1] << 8));
+			}
+			samples[f] = (short) (sum / channels);
+		}
+
+		// to the engine's sample rate, interpolating between the closest samples
+		if(frames < 2 || pcm.getSampleRate() == SAMPLE_RATE){
+			return samples;
+		}
+		double step = pcm.getSampleRate() / SAMPLE_RATE;
+		short[] resampled = new short[(int) ((frames - 1) / step) + 1];
+		for(int f = 0; f < resampled.length; f++){
+			double position = f * step;
+			int i = (int) position;
+			double fraction = position - i;
+			int next = Math.min(i + 1, frames - 1);
+			resampled[f] = (short) Math.round(samples[i] + (samples[next] - samples[i]) * fraction);
+		}
+		return resampled;
+	}
+
+	/**
+	 * Opens the audio line and starts the mixer thread.
+	 * @return true if the engine is playing, false if there is no audio line to play on,
+	 * in which case sounds are ignored
+	 */
+	public boolean start() {
+		try{
+			SourceDataLine line = AudioSystem.getSourceDataLine(FORMAT);
+			line.open(FORMAT, block.length * LINE_BLOCKS);
+			line.start();
+			this.line = line;
+		}
+		catch(LineUnavailableException e){
+			return false;
+		}
+		catch(IllegalArgumentException e){
+			// no line supports the format, or there is no audio device at all
+			return false;
+		}
+		Thread mixer = new Thread(new Runnable(){
+			public void run() {
+				while(true){
+					mix(mix, block);
+					line.write(block, 0, block.length);
+				}
+			}
+		}, "Audio mixer");
+		mixer.setDaemon(true);
+		mixer.setPriority(Thread.MAX_PRIORITY);
+		mixer.start();
+		return true;
+	}
+
+	/**
+	 * Indicates if the engine is playing.
+	 * @return true if the mixer thread is running
+	 */
+	public boolean isRunning() {
+		return line != null;
+	}
+
+	/**
+	 * Plays a sound. May be called by any thread, and only queues a command for the mixer.
+	 * @param sound the id of the sound
+	 * @return true if the sound will be played, false if the engine isn't running or
+	 * too many sounds were played at once
+	 */
+	public boolean play(int sound) {
+		if(line == null){
+			return false;
+		}
+		return commands.offer(sound);
+	}
+
+	/**
+	 * Mixes the next block of audio. Only the mixer thread may call this.
+	 * @param mix the mix accumulator, one int per frame
+	 * @param out the block of 16 bit little endian frames to fill, two bytes per frame
+	 */
+	private void mix(int[] mix, byte[] out) {
+		// start the sounds played since the last block
+		int command;
+		while((command = commands.poll()) != CommandQueue.EMPTY){
+			startVoice(command);
+		}
+
+		int frames = out.length / 2;
+		Arrays.fill(mix, 0, frames, 0);
+		for(int v = 0; v < voiceSound.length; v++){
+			if(voiceSound[v] < 0){
+				continue;
+			}
+			short[] samples = sounds[voiceSound[v]];
+			int position = voicePosition[v];
+			int count = Math.min(frames, samples.length - position);
+			for(int f = 0; f < count; f++){
+				mix[f] += samples[position + f];
+			}
+			voicePosition[v] = position + count;
+			if(voicePosition[v] == samples.length){
+				voiceSound[v] = -1;
+			}
+		}
+		for(int f = 0; f < frames; f++){
+			int sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[f]));
+			out[2 * f] = (byte) sample;
+			out[2 * f + 1] = (byte) (sample >> 8);
+		}
+	}
+
+	/**
+	 * Starts a sound on a free voice, or on the voice closest to its end: of the same sound
+	 * if it is at its voice limit, of any sound otherwise.
+	 */
+	private void startVoice(int sound) {
+		if(sound >= soundCount){
+			return;
+		}
+		int copies = 0;
+		int free = -1;
+		int closest = 0;
+		int closestRemaining = Integer.MAX_VALUE;
+		int closestCopy = 0;
+		int closestCopyRemaining = Integer.MAX_VALUE;
+		for(int v = 0; v < voiceSound.length; v++){
+			if(voiceSound[v] < 0){
+				if(free < 0){
+					free = v;
+				}
+				continue;
+			}
+			int remaining = sounds[voiceSound[v]].length - voicePosition[v];
+			if(remaining < closestRemaining){
+				closestRemaining = remaining;
+				closest = v;
+			}
+			if(voiceSound[v] == sound){
+				copies++;
+				if(remaining < closestCopyRemaining){
+					closestCopyRemaining = remaining;
+					closestCopy = v;
+				}
+			}
+		}
+		int voice = copies >= maxVoices[sound] ? closestCopy : free >= 0 ? free : closest;
+		voiceSound[voice] = sound;
+		voicePosition[voice] = 0;
+	}
+}
@@ -0,0 +1,524 @@
+package rbadia.voidspace.main;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.imageio.ImageIO;
+
+import rbadia.voidspace.graphics.GraphicsManager;
+import rbadia.voidspace.graphics.SpriteAtlas;
+import rbadia.voidspace.graphics.Starfield;
+import rbadia.voidspace.model.Asteroid;
+import rbadia.voidspace.model.BulletPool;
+import rbadia.voidspace.model.CollisionMask;
+import rbadia.voidspace.model.CollisionMasks;
+import rbadia.voidspace.model.Ship;
+import rbadia.voidspace.sounds.SoundManager;
+
+/**
+ * Benchmarks the hot paths of the simulation and the rendering, each with a range
+ * of object counts, so that engine changes can be measured and regressions caught.
+ * <p>
+ * Each benchmark is warmed up, then run in batches for a fixed time; the time per
+ * operation of every batch goes into a {@link LatencyHistogram}. Results are printed
+ * per operation and per object.
+ * <p>
+ * Usage: <code>BenchmarkMain [name filter] [counts]</code>, e.g.
+ * <code>BenchmarkMain collide 100,1000</code>. Without arguments all the benchmarks
+ * run with the default counts.
+ */
+public class BenchmarkMain {
+	private static final int[] DEFAULT_COUNTS = {10, 100, 1000, 10000};
+
+	private static final long NANOS_PER_MILLI = 1000000L;
+	private static final long WARMUP_NANOS = 500 * NANOS_PER_MILLI;
+	private static final long MEASURE_NANOS = 1000 * NANOS_PER_MILLI;
+	// batches shorter than this are too close to the timer's resolution
+	private static final long MIN_BATCH_NANOS = 100000L;
+
+	private static final long SEED = 42;
+
+	// results of the operations, so that the JIT can't drop them as unused
+	private static volatile long sink;
+
+	/**
+	 * One benchmarked operation, set up for a given number of objects.
+	 */
+	abstract static class Benchmark {
+		private final String name;
+
+		Benchmark(String name) {
+			this.name = name;
+		}
+
+		String getName() {
+			return name;
+		}
+
+		/**
+		 * Prepares the objects for the operation.
+		 * @param count the number of objects
+		 */
+		abstract void setUp(int count);
+
+		/**
+		 * Runs the operation once. Must leave the objects ready for the next run.
+		 * @return any value computed by the operation
+		 */
+		abstract long run();
+	}
+
+	/**
+	 * @param args an optional benchmark name filter and comma separated object counts
+	 */
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+		String filter = args.length > 0 ? args[0] : "";
+		int[] counts = args.length > 1 ? parseCounts(args[1]) : DEFAULT_COUNTS;
+
+		for(Benchmark benchmark : createBenchmarks()){
+			if(!benchmark.getName().contains(filter)){
+				continue;
+			}
+			for(int count : counts){
+				benchmark.setUp(count);
+				LatencyHistogram histogram = measure(benchmark);
+				System.out.println(String.format("%-24s count=%-6d p50=%12.1f ns/op  p99=%12.1f ns/op  p50=%8.2f ns/object",
+						benchmark.getName(), count, (double) histogram.getPercentile(0.5),
+						(double) histogram.getPercentile(0.99), (double) histogram.getPercentile(0.5) / count));
+			}
+		}
+	}
+
+	/**
+	 * Warms up and measures a benchmark.
+	 * @return the time per operation of each measured batch
+	 */
+	private static LatencyHistogram measure(Benchmark benchmark) {
+		// find how many operations make a batch long enough to time
+		int batchSize = 1;
+		while(timeBatch(benchmark, batchSize) < MIN_BATCH_NANOS){
+			batchSize *= 2;
+		}
+
+		long warmupEnd = System.nanoTime() + WARMUP_NANOS;
+		while(System.nanoTime() < warmupEnd){
+			timeBatch(benchmark, batchSize);
+		}
+
+		LatencyHistogram histogram = new LatencyHistogram(benchmark.getName());
+		long measureEnd = System.nanoTime() + MEASURE_NANOS;
+		while(System.nanoTime() < measureEnd){
+			histogram.record(timeBatch(benchmark, batchSize) / batchSize);
+		}
+		return histogram;
+	}
+
+	private static long timeBatch(Benchmark benchmark, int batchSize) {
+		long result = 0;
+		long startTime = System.nanoTime();
+		for(int i = 0; i < batchSize; i++){
+			result += benchmark.run();
+		}
+		long elapsed = System.nanoTime() - startTime;
+		sink += result;
+		return elapsed;
+	}
+
+	private static int[] parseCounts(String counts) {
+		String[] values = counts.split(",");
+		int[] result = new int[values.length];
+		for(int i = 0; i < values.length; i++){
+			result[i] = Integer.parseInt(values[i].trim());
+		}
+		return result;
+	}
+
+	/**
+	 * Creates a game that is being played, with no objects on screen.
+	 */
+	private static GameLogic newGameLogic() {
+		GameLogic gameLogic = new GameLogic(new HeadlessPlayfield(), new SoundManager(false),
+				new TickClock(GameLoop.DEFAULT_TICK_RATE),
+				new TickScheduler(GameLoop.DEFAULT_TICK_RATE), new GameRandom(SEED));
+		gameLogic.newGame();
+		GameStatus status = gameLogic.getStatus();
+		status.setGameStarting(false);
+		status.setGameStarted(true);
+		return gameLogic;
+	}
+
+	private static List<Benchmark> createBenchmarks() {
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+
+		// GameLogic.moveBullet over the ship's bullets spread over the screen
+		benchmarks.add(new Benchmark("moveBullet") {
+			private GameLogic gameLogic;
+			private BulletPool bullets;
+
+			void setUp(int count) {
+				gameLogic = newGameLogic();
+				bullets = gameLogic.getBullets();
+				addBullets(gameLogic, count, BulletPool.SHIP);
+			}
+
+			long run() {
+				long removed = 0;
+				for(int i = 0; i < bullets.size(); i++){
+					if(gameLogic.moveBullet(i)){
+						// fire it again from the bottom instead of removing it
+						bullets.jumpTo(i, bullets.getX(i), gameLogic.getPlayfield().getHeight() - BulletPool.HEIGHT);
+						removed++;
+					}
+				}
+				return removed;
+			}
+		});
+
+		// GameLogic.moveBullet over the enemy's bullets spread over the screen
+		benchmarks.add(new Benchmark("moveEnemyBullet") {
+			private GameLogic gameLogic;
+			private BulletPool bullets;
+
+			void setUp(int count) {
+				gameLogic = newGameLogic();
+				bullets = gameLogic.getBullets();
+				addBullets(gameLogic, count, BulletPool.ENEMY);
+			}
+
+			long run() {
+				long removed = 0;
+				for(int i = 0; i < bullets.size(); i++){
+					if(gameLogic.moveBullet(i)){
+						// fire it again from the top instead of removing it
+						bullets.jumpTo(i, bullets.getX(i), 0);
+						removed++;
+					}
+				}
+				return removed;
+			}
+		});
+
+		// GameLogic.checkCollisions with as many bullets as asteroids, none of them hitting,
+		// so that every bullet is checked against every asteroid on every run
+		benchmarks.add(new Benchmark("collide") {
+			private GameLogic gameLogic;
+
+			void setUp(int count) {
+				gameLogic = newGameLogic();
+				gameLogic.getStatus().setAsteroidsDestroyed(10);
+				Ship ship = gameLogic.getShip();
+				ship.jumpTo(-ship.width * 2, -ship.height * 2);
+
+				int halfHeight = gameLogic.getPlayfield().getHeight() / 2;
+				SplittableRandom rand = new SplittableRandom(SEED);
+				BulletPool bullets = gameLogic.getBullets();
+				addBullets(gameLogic, count, BulletPool.SHIP);
+				for(int i = 0; i < bullets.size(); i++){
+					bullets.jumpTo(i, bullets.getX(i), rand.nextInt(halfHeight - BulletPool.HEIGHT));
+				}
+				List<Asteroid> asteroids = gameLogic.getAsteroids();
+				asteroids.clear();
+				for(int i = 0; i < count; i++){
+					Asteroid asteroid = new Asteroid(gameLogic.getPlayfield(), rand);
+					asteroid.jumpTo(asteroid.x, halfHeight + rand.nextInt(halfHeight - asteroid.height));
+					asteroids.add(asteroid);
+				}
+			}
+
+			long run() {
+				gameLogic.checkCollisions();
+				return gameLogic.getBullets().size();
+			}
+		});
+
+		// finding the first ship bullet hitting each of as many targets as bullets, by testing
+		// every bullet against every target and through a SpatialGrid; running both with
+		// small counts, e.g. "broadphase 1,2,4,8,16,32,64", shows where the grid starts to pay
+		benchmarks.add(new BroadphaseBenchmark("broadphaseBrute") {
+			long run() {
+				long found = 0;
+				for(int j = 0; j < targets.length; j++){
+					for(int i = 0; i < bullets.size(); i++){
+						if(bullets.getOwner(i) == BulletPool.SHIP && bullets.sweepIntersects(i, targets[j])){
+							found += i;
+							break;
+						}
+					}
+				}
+				return found;
+			}
+		});
+		benchmarks.add(new BroadphaseBenchmark("broadphaseGrid") {
+			private final CollisionPhase collisions = new CollisionPhase(800, 600, null, Integer.MAX_VALUE);
+
+			long run() {
+				return findHits(collisions);
+			}
+		});
+
+		// the same through a CollisionPhase that always checks in parallel on the common
+		// pool; comparing with broadphaseGrid, e.g. "broadphase 16,64,256,1024", shows how
+		// much work it takes for the parallel phase to pay, to set its threshold
+		benchmarks.add(new BroadphaseBenchmark("broadphaseParallel") {
+			private final CollisionPhase collisions = new CollisionPhase(800, 600, ForkJoinPool.commonPool(), 0);
+
+			long run() {
+				return findHits(collisions);
+			}
+		});
+
+		// CollisionMask.overlaps of bullets against asteroids, at offsets where their
+		// bounding boxes overlap, compared with the bounding box test alone
+		benchmarks.add(new Benchmark("maskOverlap") {
+			private CollisionMask asteroidMask;
+			private CollisionMask bulletMask;
+			private int[] dx;
+			private int[] dy;
+
+			void setUp(int count) {
+				if(asteroidMask == null){
+					CollisionMasks masks = new GraphicsManager().getCollisionMasks();
+					asteroidMask = masks.getAsteroidMask();
+					bulletMask = masks.getBulletMask();
+				}
+				SplittableRandom rand = new SplittableRandom(SEED);
+				dx = new int[count];
+				dy = new int[count];
+				for(int i = 0; i < count; i++){
+					dx[i] = rand.nextInt(-BulletPool.WIDTH + 1, asteroidMask.getWidth());
+					dy[i] = rand.nextInt(-BulletPool.HEIGHT + 1, asteroidMask.getHeight());
+				}
+			}
+
+			long run() {
+				long hits = 0;
+				for(int i = 0; i < dx.length; i++){
+					if(asteroidMask.overlaps(0, 0, bulletMask, dx[i], dy[i])){
+						hits++;
+					}
+				}
+				return hits;
+			}
+		});
+
+		// GraphicsManager.draw* into an offscreen image
+		benchmarks.add(new DrawBenchmark("drawShip") {
+			void draw(int x, int y) {
+				graphicsMan.drawShip(x, y, g2d, null);
+			}
+		});
+		benchmarks.add(new DrawBenchmark("drawAsteroid") {
+			void draw(int x, int y) {
+				graphicsMan.drawAsteroid(x, y, g2d, null);
+			}
+		});
+		benchmarks.add(new DrawBenchmark("drawBullet") {
+			void draw(int x, int y) {
+				graphicsMan.drawBullet(x, y, g2d, null);
+			}
+		});
+		benchmarks.add(new DrawBenchmark("drawAsteroidExplosion") {
+			void draw(int x, int y) {
+				graphicsMan.drawAsteroidExplosion(x, y, g2d, null);
+			}
+		});
+
+		// an asteroid blitted from the image as the PNG decoder returned it, as the sprites
+		// were drawn before, and from a sprite atlas in the screen's format; per object
+		// times are per blit
+		benchmarks.add(new DrawBenchmark("blitDecoded") {
+			private BufferedImage decoded;
+
+			void draw(int x, int y) {
+				if(decoded == null){
+					decoded = readSprite("asteroid.png");
+				}
+				g2d.drawImage(decoded, x, y, null);
+			}
+		});
+		benchmarks.add(new DrawBenchmark("blitAtlas") {
+			private SpriteAtlas atlas;
+
+			void draw(int x, int y) {
+				if(atlas == null){
+					atlas = new SpriteAtlas(new BufferedImage[] {readSprite("asteroid.png")});
+				}
+				atlas.draw(0, x, y, g2d, null);
+			}
+		});
+
+		// the background the game drew before the starfield, to compare with: a black fill
+		// and count stars at random places each frame (the game drew 50)
+		benchmarks.add(new Benchmark("drawPlainBackground") {
+			private Graphics2D g2d;
+			private SplittableRandom rand;
+			private int stars;
+
+			void setUp(int count) {
+				if(g2d == null){
+					g2d = createImage().createGraphics();
+				}
+				rand = new SplittableRandom(SEED);
+				stars = count;
+			}
+
+			long run() {
+				g2d.setPaint(Color.BLACK);
+				g2d.fillRect(0, 0, 800, 600);
+				g2d.setColor(Color.WHITE);
+				for(int i = 0; i < stars; i++){
+					int x = rand.nextInt(800);
+					int y = rand.nextInt(600);
+					g2d.drawLine(x, y, x, y);
+				}
+				return 1;
+			}
+		});
+
+		// a starfield with count stars per layer into an offscreen image; the time should
+		// only grow with the near stars, drawn one by one
+		benchmarks.add(new Benchmark("drawStarfield") {
+			private Starfield starfield;
+			private Graphics2D g2d;
+			private long time;
+
+			void setUp(int count) {
+				if(g2d == null){
+					g2d = createImage().createGraphics();
+				}
+				starfield = new Starfield(800, 600, new int[] {count, count, count},
+						new GameRandom(SEED).getStream(GameRandom.Stream.STARS), SpriteAtlas.getDefaultConfiguration());
+			}
+
+			long run() {
+				// a frame at 60 frames per second
+				time += 16666667;
+				starfield.draw(g2d, time);
+				return 1;
+			}
+		});
+
+		return benchmarks;
+	}
+
+	/**
+	 * Replaces the game's bullets with bullets spread over the screen.
+	 */
+	private static void addBullets(GameLogic gameLogic, int count, int owner) {
+		SplittableRandom rand = new SplittableRandom(SEED);
+		int vy = owner == BulletPool.SHIP ? -BulletPool.SPEED : BulletPool.SPEED;
+		BulletPool bullets = gameLogic.getBullets();
+		bullets.clear();
+		for(int i = 0; i < count; i++){
+			bullets.add(rand.nextInt(gameLogic.getPlayfield().getWidth() - BulletPool.WIDTH),
+					rand.nextInt(gameLogic.getPlayfield().getHeight() - BulletPool.HEIGHT), 0, vy, owner);
+		}
+	}
+
+	private static BufferedImage readSprite(String name) {
+		try{
+			return ImageIO.read(BenchmarkMain.class.getResource("/rbadia/voidspace/graphics/" + name));
+		}
+		catch(IOException e){
+			throw new IllegalStateException("Can't read " + name, e);
+		}
+	}
+
+	private static BufferedImage createImage() {
+		return new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+	}
+
+	/**
+	 * Ship bullets and asteroids spread over an 800x600 playfield, the bullets having moved
+	 * one tick up.
+	 */
+	abstract static class BroadphaseBenchmark extends Benchmark {
+		BulletPool bullets;
+		Asteroid[] targets;
+
+		BroadphaseBenchmark(String name) {
+			super(name);
+		}
+
+		void setUp(int count) {
+			SplittableRandom rand = new SplittableRandom(SEED);
+			HeadlessPlayfield playfield = new HeadlessPlayfield();
+			bullets = new BulletPool();
+			targets = new Asteroid[count];
+			for(int i = 0; i < count; i++){
+				bullets.add(rand.nextInt(800 - BulletPool.WIDTH), rand.nextInt(600 - BulletPool.HEIGHT),
+						0, -BulletPool.SPEED, BulletPool.SHIP);
+				targets[i] = new Asteroid(playfield, rand);
+				targets[i].jumpTo(targets[i].x, rand.nextInt(600 - targets[i].height));
+			}
+			bullets.savePositions();
+			for(int i = 0; i < count; i++){
+				bullets.move(i);
+			}
+		}
+
+		/**
+		 * Finds the first bullet hitting each target, without removing it.
+		 */
+		long findHits(CollisionPhase collisions) {
+			long found = 0;
+			collisions.start(bullets);
+			for(int j = 0; j < targets.length; j++){
+				collisions.addTarget(targets[j], null, BulletPool.SHIP, null);
+			}
+			collisions.detect();
+			for(int j = 0; j < targets.length; j++){
+				found += collisions.firstHit(j);
+			}
+			collisions.finish();
+			return found;
+		}
+	}
+
+	/**
+	 * Draws the same sprite at a number of locations spread over an offscreen image.
+	 */
+	abstract static class DrawBenchmark extends Benchmark {
+		GraphicsManager graphicsMan;
+		Graphics2D g2d;
+		private int[] x;
+		private int[] y;
+
+		DrawBenchmark(String name) {
+			super(name);
+		}
+
+		void setUp(int count) {
+			if(graphicsMan == null){
+				graphicsMan = new GraphicsManager();
+				g2d = createImage().createGraphics();
+			}
+			SplittableRandom rand = new SplittableRandom(SEED);
+			x = new int[count];
+			y = new int[count];
+			for(int i = 0; i < count; i++){
+				x[i] = rand.nextInt(800);
+				y[i] = rand.nextInt(600);
+			}
+		}
+
+		long run() {
+			for(int i = 0; i < x.length; i++){
+				draw(x[i], y[i]);
+			}
+			return x.length;
+		}
+
+		/**
+		 * Draws the sprite once.
+		 */
+		abstract void draw(int x, int y);
+	}
+}
@@ -1,6 +1,5 @@
 package rbadia.voidspace.model;
 
-import rbadia.voidspace.main.GameScreen;
 /**
  * Represents boss ship.
  * 
@@ -20,12 +19,13 @@ public class BossShip extends Ship {
 	
 	/**
 	 * Creates new enemy ship.
-	 * @param screen the game screen
+	 * @param playfield the playfield
 	 */
-	public BossShip(GameScreen screen) {
-		super(screen);
-		this.setLocation(screen.getWidth() / 2 - this.getShipWidth()/2,
-						 screen.getHeight() / 2 - this.getShipHeight()/2);	
+	public BossShip(Playfield playfield) {
+		super(playfield);
+		this.setLocation(playfield.getWidth() / 2 - this.getShipWidth()/2,
+						 playfield.getHeight() / 2 - this.getShipHeight()/2);	
+		this.savePosition();
 	}
 
 	/**
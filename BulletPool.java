@@ -0,0 +1,257 @@
+package rbadia.voidspace.model;
+
+import java.util.Arrays;
+
+/**
+ * Holds all the bullets on screen, fired by the ship or its enemies, as parallel arrays
+ * of primitives instead of one object per bullet.
+ * <p>
+ * Bullets are identified by their index, from 0 to {@link #size()} - 1. Removing a bullet
+ * moves the last one into its place, so indexes change on removal and the order of the
+ * bullets is not kept. The arrays start with a fixed capacity and double when full; once
+ * they are big enough, firing, moving and removing bullets allocates nothing.
+ */
+public class BulletPool {
+	/** Owner of the bullets fired by the ship. */
+	public static final int SHIP = 0;
+	/** Owner of the bullets fired by the enemy ship. */
+	public static final int ENEMY = 1;
+	/** Owner of the bullets fired by the boss ship. */
+	public static final int BOSS = 2;
+
+	/** Width of a bullet. */
+	public static final int WIDTH = 8;
+	/** Height of a bullet. */
+	public static final int HEIGHT = 8;
+	/** Distance a bullet travels per tick. */
+	public static final int SPEED = 12;
+
+	private static final int DEFAULT_CAPACITY = 64;
+
+	private int size;
+	private int[] x;
+	private int[] y;
+	private int[] previousX;
+	private int[] previousY;
+	private int[] vx;
+	private int[] vy;
+	private int[] owner;
+
+	/**
+	 * Creates a new empty pool with the default capacity.
+	 */
+	public BulletPool() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a new empty pool.
+	 * @param capacity the number of bullets the pool holds before growing
+	 */
+	public BulletPool(int capacity) {
+		if(capacity < 1){
+			throw new IllegalArgumentException("Invalid bullet pool capacity: " + capacity);
+		}
+		x = new int[capacity];
+		y = new int[capacity];
+		previousX = new int[capacity];
+		previousY = new int[capacity];
+		vx = new int[capacity];
+		vy = new int[capacity];
+		owner = new int[capacity];
+	}
+
+	/**
+	 * Adds a bullet, growing the pool if it is full.
+	 * @param x the x coordinate of the bullet
+	 * @param y the y coordinate of the bullet
+	 * @param vx the distance the bullet travels along x per tick
+	 * @param vy the distance the bullet travels along y per tick
+	 * @param owner who fired the bullet: {@link #SHIP}, {@link #ENEMY} or {@link #BOSS}
+	 * @return the index of the new bullet
+	 */
+	public int add(int x, int y, int vx, int vy, int owner) {
+		if(size == this.x.length){
+			grow();
+		}
+		int i = size++;
+		this.x[i] = x;
+		this.y[i] = y;
+		this.previousX[i] = x;
+		this.previousY[i] = y;
+		this.vx[i] = vx;
+		this.vy[i] = vy;
+		this.owner[i] = owner;
+		return i;
+	}
+
+	/**
+	 * Removes a bullet by moving the last bullet into its place.
+	 * @param i the index of the bullet to remove
+	 */
+	public void remove(int i) {
+		int last = --size;
+		x[i] = x[last];
+		y[i] = y[last];
+		previousX[i] = previousX[last];
+		previousY[i] = previousY[last];
+		vx[i] = vx[last];
+		vy[i] = vy[last];
+		owner[i] = owner[last];
+	}
+
+	/**
+	 * Removes all the bullets. The capacity is kept.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Returns the number of bullets.
+	 * @return the number of bullets
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of bullets the pool holds before growing.
+	 * @return the capacity
+	 */
+	public int getCapacity() {
+		return x.length;
+	}
+
+	/**
+	 * Moves a bullet by its velocity.
+	 * @param i the index of the bullet
+	 */
+	public void move(int i) {
+		x[i] += vx[i];
+		y[i] += vy[i];
+	}
+
+	/**
+	 * Remembers the current location of every bullet as its location of the previous tick.
+	 * Should be called once at the start of every simulation tick.
+	 */
+	public void savePositions() {
+		System.arraycopy(x, 0, previousX, 0, size);
+		System.arraycopy(y, 0, previousY, 0, size);
+	}
+
+	/**
+	 * Indicates if a bullet and a game object touched at any time during the current tick,
+	 * like {@link GameObject#sweepIntersects(GameObject)}.
+	 * @param i the index of the bullet
+	 * @param target the game object
+	 * @return true if the bullet and the object touched
+	 */
+	public boolean sweepIntersects(int i, GameObject target) {
+		return GameObject.sweepIntersects(previousX[i], previousY[i], x[i], y[i], WIDTH, HEIGHT,
+				target.getPreviousX(), target.getPreviousY(), target.x, target.y, target.width, target.height);
+	}
+
+	/**
+	 * Indicates if a bullet and a game object had an opaque pixel in common at any time
+	 * during the current tick, like {@link CollisionMask#sweepOverlaps}.
+	 * @param i the index of the bullet
+	 * @param mask the collision mask of the bullet
+	 * @param target the game object
+	 * @param targetMask the collision mask of the game object
+	 * @return true if the bullet and the object overlapped
+	 */
+	public boolean sweepOverlaps(int i, CollisionMask mask, GameObject target, CollisionMask targetMask) {
+		return CollisionMask.sweepOverlaps(mask, previousX[i], previousY[i], x[i], y[i],
+				targetMask, target.getPreviousX(), target.getPreviousY(), target.x, target.y);
+	}
+
+	/**
+	 * Returns the x coordinate of a bullet.
+	 * @param i the index of the bullet
+	 * @return the x coordinate
+	 */
+	public int getX(int i) {
+		return x[i];
+	}
+
+	/**
+	 * Returns the y coordinate of a bullet.
+	 * @param i the index of the bullet
+	 * @return the y coordinate
+	 */
+	public int getY(int i) {
+		return y[i];
+	}
+
+	/**
+	 * Returns the x coordinate of a bullet before its last move.
+	 * @param i the index of the bullet
+	 * @return the previous x coordinate
+	 */
+	public int getPreviousX(int i) {
+		return previousX[i];
+	}
+
+	/**
+	 * Returns the y coordinate of a bullet before its last move.
+	 * @param i the index of the bullet
+	 * @return the previous y coordinate
+	 */
+	public int getPreviousY(int i) {
+		return previousY[i];
+	}
+
+	/**
+	 * Returns the distance a bullet travels along x per tick.
+	 * @param i the index of the bullet
+	 * @return the x velocity
+	 */
+	public int getVx(int i) {
+		return vx[i];
+	}
+
+	/**
+	 * Returns the distance a bullet travels along y per tick.
+	 * @param i the index of the bullet
+	 * @return the y velocity
+	 */
+	public int getVy(int i) {
+		return vy[i];
+	}
+
+	/**
+	 * Returns who fired a bullet.
+	 * @param i the index of the bullet
+	 * @return {@link #SHIP}, {@link #ENEMY} or {@link #BOSS}
+	 */
+	public int getOwner(int i) {
+		return owner[i];
+	}
+
+	/**
+	 * Moves a bullet to a new location without passing through the space in between,
+	 * like {@link GameObject#jumpTo(int, int)}.
+	 * @param i the index of the bullet
+	 * @param x the new x coordinate
+	 * @param y the new y coordinate
+	 */
+	public void jumpTo(int i, int x, int y) {
+		this.x[i] = x;
+		this.y[i] = y;
+		this.previousX[i] = x;
+		this.previousY[i] = y;
+	}
+
+	private void grow() {
+		int capacity = x.length * 2;
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		previousX = Arrays.copyOf(previousX, capacity);
+		previousY = Arrays.copyOf(previousY, capacity);
+		vx = Arrays.copyOf(vx, capacity);
+		vy = Arrays.copyOf(vy, capacity);
+		owner = Arrays.copyOf(owner, capacity);
+	}
+}
@@ -0,0 +1,97 @@
+package rbadia.voidspace.main;
+
+import java.util.Arrays;
+
+import rbadia.voidspace.main.CollisionMatrix.Layer;
+
+/**
+ * The collisions of a tick, as compact records of the two objects that collided: the
+ * layer of each and its index in the layer (the index in the {@link rbadia.voidspace.model.BulletPool}
+ * for bullets, in the asteroid list for asteroids, 0 for the ships).
+ * <p>
+ * Collisions are added while they are detected, then read, in the same order, by each of
+ * the systems responding to them, and cleared at the end of the tick. The records are held
+ * in parallel arrays that double when full; once they are big enough, a tick allocates nothing.
+ */
+public class CollisionEvents {
+	private static final Layer[] LAYERS = Layer.values();
+
+	private int size;
+	private int[] layerA = new int[16];
+	private int[] indexA = new int[16];
+	private int[] layerB = new int[16];
+	private int[] indexB = new int[16];
+
+	/**
+	 * Adds a collision.
+	 * @param a the layer of the first object
+	 * @param aIndex the index of the first object in its layer
+	 * @param b the layer of the second object
+	 * @param bIndex the index of the second object in its layer
+	 */
+	public void add(Layer a, int aIndex, Layer b, int bIndex) {
+		if(size == layerA.length){
+			int capacity = size * 2;
+			layerA = Arrays.copyOf(layerA, capacity);
+			indexA = Arrays.copyOf(indexA, capacity);
+			layerB = Arrays.copyOf(layerB, capacity);
+			indexB = Arrays.copyOf(indexB, capacity);
+		}
+		layerA[size] = a.ordinal();
+		indexA[size] = aIndex;
+		layerB[size] = b.ordinal();
+		indexB[size] = bIndex;
+		size++;
+	}
+
+	/**
+	 * Removes all the collisions. The capacity is kept.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Returns the number of collisions.
+	 * @return the number of collisions
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the layer of the first object of a collision.
+	 * @param i the index of the collision, in the order they were added
+	 * @return the layer
+	 */
+	public Layer getLayerA(int i) {
+		return LAYERS[layerA[i]];
+	}
+
+	/**
+	 * Returns the index of the first object of a collision in its layer.
+	 * @param i the index of the collision, in the order they were added
+	 * @return the index in the layer
+	 */
+	public int getIndexA(int i) {
+		return indexA[i];
+	}
+
+	/**
+	 * Returns the layer of the second object of a collision.
+	 * @param i the index of the collision, in the order they were added
+	 * @return the layer
+	 */
+	public Layer getLayerB(int i) {
+		return LAYERS[layerB[i]];
+	}
+
+	/**
+	 * Returns the index of the second object of a collision in its layer.
+	 * @param i the index of the collision, in the order they were added
+	 * @return the index in the layer
+	 */
+	public int getIndexB(int i) {
+		return indexB[i];
+	}
+}
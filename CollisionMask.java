@@ -0,0 +1,189 @@
+package rbadia.voidspace.model;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * The opaque pixels of a sprite, one bit per pixel, packed 64 pixels to a <code>long</code>,
+ * for pixel-perfect collisions. Two masks overlap if any pair of rows, shifted by the
+ * distance between the sprites, has a bit set in both; for sprites up to 64 pixels wide
+ * that is one AND per overlapping row.
+ * <p>
+ * Masks are built once, when the images are loaded, and never change.
+ */
+public class CollisionMask {
+	/** Alpha at or above which a pixel is opaque. */
+	public static final int ALPHA_THRESHOLD = 128;
+
+	private final int width;
+	private final int height;
+	private final int wordsPerRow;
+	// bit x % 64 of word x / 64 of a row is pixel x
+	private final long[] bits;
+
+	/**
+	 * Creates a new mask with no opaque pixels.
+	 * @param width the width of the mask
+	 * @param height the height of the mask
+	 */
+	public CollisionMask(int width, int height) {
+		if(width < 1 || height < 1){
+			throw new IllegalArgumentException("Invalid mask size: width=" + width + ", height=" + height);
+		}
+		this.width = width;
+		this.height = height;
+		this.wordsPerRow = (width + 63) >>> 6;
+		this.bits = new long[wordsPerRow * height];
+	}
+
+	/**
+	 * Creates a mask from the alpha channel of an image.
+	 * @param image the image
+	 * @return the mask of the pixels with an alpha of at least {@link #ALPHA_THRESHOLD}
+	 */
+	public static CollisionMask fromAlpha(BufferedImage image) {
+		int width = image.getWidth();
+		int height = image.getHeight();
+		CollisionMask mask = new CollisionMask(width, height);
+		int[] row = new int[width];
+		for(int y = 0; y < height; y++){
+			image.getRGB(0, y, width, 1, row, 0, width);
+			for(int x = 0; x < width; x++){
+				if(row[x] >>> 24 >= ALPHA_THRESHOLD){
+					mask.set(x, y);
+				}
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * Returns the width of the mask.
+	 * @return the width in pixels
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Returns the height of the mask.
+	 * @return the height in pixels
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Marks a pixel as opaque.
+	 * @param x the x coordinate of the pixel
+	 * @param y the y coordinate of the pixel
+	 */
+	public void set(int x, int y) {
+		bits[y * wordsPerRow + (x >>> 6)] |= 1L << (x & 63);
+	}
+
+	/**
+	 * Indicates if a pixel is opaque.
+	 * @param x the x coordinate of the pixel
+	 * @param y the y coordinate of the pixel
+	 * @return true if the pixel is opaque, false if it is transparent or outside the mask
+	 */
+	public boolean get(int x, int y) {
+		if(x < 0 || x >= width || y < 0 || y >= height){
+			return false;
+		}
+		return (bits[y * wordsPerRow + (x >>> 6)] & (1L << (x & 63))) != 0;
+	}
+
+	/**
+	 * Indicates if this mask at a location and another mask at another location have an
+	 * opaque pixel in common.
+	 * @param x the x coordinate of this mask
+	 * @param y the y coordinate of this mask
+	 * @param other the other mask
+	 * @param otherX the x coordinate of the other mask
+	 * @param otherY the y coordinate of the other mask
+	 * @return true if the masks overlap
+	 */
+	public boolean overlaps(int x, int y, CollisionMask other, int otherX, int otherY) {
+		int left = Math.max(x, otherX);
+		int right = Math.min(x + width, otherX + other.width);
+		int top = Math.max(y, otherY);
+		int bottom = Math.min(y + height, otherY + other.height);
+		if(left >= right || top >= bottom){
+			return false;
+		}
+		int length = right - left;
+		for(int rowY = top; rowY < bottom; rowY++){
+			int row = (rowY - y) * wordsPerRow;
+			int otherRow = (rowY - otherY) * other.wordsPerRow;
+			for(int offset = 0; offset < length; offset += 64){
+				long common = word(row, left - x + offset) & other.word(otherRow, left - otherX + offset);
+				int remaining = length - offset;
+				if(remaining < 64){
+					common &= (1L << remaining) - 1;
+				}
+				if(common != 0){
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Indicates if two sprites moving in a straight line during the current tick had an
+	 * opaque pixel in common at any point. The paths are checked a pixel of relative
+	 * motion at a time, so that thin sprites can't pass through each other.
+	 * @param mask the mask of the first sprite
+	 * @param x0 the x coordinate of the first sprite at the start of the tick
+	 * @param y0 the y coordinate of the first sprite at the start of the tick
+	 * @param x1 the current x coordinate of the first sprite
+	 * @param y1 the current y coordinate of the first sprite
+	 * @param other the mask of the second sprite
+	 * @param otherX0 the x coordinate of the second sprite at the start of the tick
+	 * @param otherY0 the y coordinate of the second sprite at the start of the tick
+	 * @param otherX1 the current x coordinate of the second sprite
+	 * @param otherY1 the current y coordinate of the second sprite
+	 * @return true if the sprites overlapped
+	 */
+	public static boolean sweepOverlaps(CollisionMask mask, int x0, int y0, int x1, int y1,
+			CollisionMask other, int otherX0, int otherY0, int otherX1, int otherY1) {
+		int dx = x1 - x0;
+		int dy = y1 - y0;
+		int otherDx = otherX1 - otherX0;
+		int otherDy = otherY1 - otherY0;
+		int steps = Math.max(Math.abs(dx - otherDx), Math.abs(dy - otherDy));
+		if(steps == 0){
+			return mask.overlaps(x1, y1, other, otherX1, otherY1);
+		}
+		for(int step = 0; step <= steps; step++){
+			if(mask.overlaps(x0 + lerp(dx, step, steps), y0 + lerp(dy, step, steps),
+					other, otherX0 + lerp(otherDx, step, steps), otherY0 + lerp(otherDy, step, steps))){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the part of a distance covered after some of the steps, rounded to the
+	 * nearest pixel.
+	 */
+	private static int lerp(int distance, int step, int steps) {
+		return Math.floorDiv(2 * distance * step + steps, 2 * steps);
+	}
+
+	/**
+	 * Returns the 64 pixels of a row starting at a given pixel, which may be in between
+	 * two words. Pixels past the end of the row are transparent.
+	 */
+	private long word(int row, int x) {
+		int index = x >>> 6;
+		int shift = x & 63;
+		long value = bits[row + index] >>> shift;
+		if(shift != 0 && index + 1 < wordsPerRow){
+			value |= bits[row + index + 1] << (64 - shift);
+		}
+		return value;
+	}
+}
@@ -0,0 +1,82 @@
+package rbadia.voidspace.model;
+
+/**
+ * The collision masks of the sprites that can hit each other. Holding only the masks, and
+ * none of the images they were built from, lets the simulation check collisions pixel by
+ * pixel without a screen to draw on.
+ */
+public class CollisionMasks {
+	private final CollisionMask shipMask;
+	private final CollisionMask bulletMask;
+	private final CollisionMask enemyBulletMask;
+	private final CollisionMask asteroidMask;
+	private final CollisionMask enemyMask;
+	private final CollisionMask bossMask;
+
+	/**
+	 * Creates a new set of collision masks.
+	 * @param shipMask the mask of the ship
+	 * @param bulletMask the mask of the ship's bullets
+	 * @param enemyBulletMask the mask of the enemy and boss bullets
+	 * @param asteroidMask the mask of the asteroids
+	 * @param enemyMask the mask of the enemy ship
+	 * @param bossMask the mask of the boss ship
+	 */
+	public CollisionMasks(CollisionMask shipMask, CollisionMask bulletMask, CollisionMask enemyBulletMask,
+			CollisionMask asteroidMask, CollisionMask enemyMask, CollisionMask bossMask) {
+		this.shipMask = shipMask;
+		this.bulletMask = bulletMask;
+		this.enemyBulletMask = enemyBulletMask;
+		this.asteroidMask = asteroidMask;
+		this.enemyMask = enemyMask;
+		this.bossMask = bossMask;
+	}
+
+	/**
+	 * Returns the collision mask of the ship.
+	 * @return the ship's mask
+	 */
+	public CollisionMask getShipMask() {
+		return shipMask;
+	}
+
+	/**
+	 * Returns the collision mask of the ship's bullets.
+	 * @return the bullet's mask
+	 */
+	public CollisionMask getBulletMask() {
+		return bulletMask;
+	}
+
+	/**
+	 * Returns the collision mask of the enemy and boss bullets.
+	 * @return the enemy bullet's mask
+	 */
+	public CollisionMask getEnemyBulletMask() {
+		return enemyBulletMask;
+	}
+
+	/**
+	 * Returns the collision mask of the asteroids.
+	 * @return the asteroid's mask
+	 */
+	public CollisionMask getAsteroidMask() {
+		return asteroidMask;
+	}
+
+	/**
+	 * Returns the collision mask of the enemy ship.
+	 * @return the enemy ship's mask
+	 */
+	public CollisionMask getEnemyMask() {
+		return enemyMask;
+	}
+
+	/**
+	 * Returns the collision mask of the boss ship.
+	 * @return the boss ship's mask
+	 */
+	public CollisionMask getBossMask() {
+		return bossMask;
+	}
+}
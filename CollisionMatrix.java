@@ -0,0 +1,117 @@
+package rbadia.voidspace.main;
+
+import rbadia.voidspace.model.BulletPool;
+
+/**
+ * Declares which groups of game objects can collide with each other. Pairs of layers that
+ * are not declared are never tested.
+ * <p>
+ * The pairs are kept in the order they were declared, which is the order their collisions
+ * are checked and reported in every tick.
+ */
+public class CollisionMatrix {
+	/**
+	 * The groups of game objects that can collide.
+	 */
+	public enum Layer {
+		/** The player's ship. */
+		PLAYER(-1),
+		/** The bullets fired by the player's ship. */
+		PLAYER_BULLET(BulletPool.SHIP),
+		/** The bullets fired by the enemy ship. */
+		ENEMY_BULLET(BulletPool.ENEMY),
+		/** The bullets fired by the boss ship. */
+		BOSS_BULLET(BulletPool.BOSS),
+		/** The asteroids. */
+		ASTEROID(-1),
+		/** The enemy ship. */
+		ENEMY(-1),
+		/** The boss ship. */
+		BOSS(-1);
+
+		private final int bulletOwner;
+
+		private Layer(int bulletOwner) {
+			this.bulletOwner = bulletOwner;
+		}
+
+		/**
+		 * Indicates if the layer holds bullets from the {@link BulletPool}.
+		 * @return true for the bullet layers
+		 */
+		public boolean isBullets() {
+			return bulletOwner >= 0;
+		}
+
+		/**
+		 * Returns the owner of the bullets of the layer.
+		 * @return the owner in the {@link BulletPool}, or -1 if the layer doesn't hold bullets
+		 */
+		public int getBulletOwner() {
+			return bulletOwner;
+		}
+	}
+
+	private static final Layer[] LAYERS = Layer.values();
+
+	private final boolean[][] interacts = new boolean[LAYERS.length][LAYERS.length];
+	private Layer[] first = new Layer[LAYERS.length * LAYERS.length];
+	private Layer[] second = new Layer[LAYERS.length * LAYERS.length];
+	private int pairCount;
+
+	/**
+	 * Declares that two layers collide. At most one of them may hold bullets; bullets don't
+	 * collide with bullets.
+	 * @param a the first layer, reported first in the collision events
+	 * @param b the second layer
+	 */
+	public void enable(Layer a, Layer b) {
+		if(a.isBullets() && b.isBullets()){
+			throw new IllegalArgumentException("Bullets can't collide with bullets: " + a + ", " + b);
+		}
+		if(interacts[a.ordinal()][b.ordinal()]){
+			return;
+		}
+		interacts[a.ordinal()][b.ordinal()] = true;
+		interacts[b.ordinal()][a.ordinal()] = true;
+		first[pairCount] = a;
+		second[pairCount] = b;
+		pairCount++;
+	}
+
+	/**
+	 * Indicates if two layers collide.
+	 * @param a a layer
+	 * @param b another layer
+	 * @return true if the pair was declared, in either order
+	 */
+	public boolean interacts(Layer a, Layer b) {
+		return interacts[a.ordinal()][b.ordinal()];
+	}
+
+	/**
+	 * Returns the number of pairs of layers that collide.
+	 * @return the number of pairs
+	 */
+	public int getPairCount() {
+		return pairCount;
+	}
+
+	/**
+	 * Returns the first layer of a pair.
+	 * @param pair the pair, in declaration order
+	 * @return the first layer
+	 */
+	public Layer getFirst(int pair) {
+		return first[pair];
+	}
+
+	/**
+	 * Returns the second layer of a pair.
+	 * @param pair the pair, in declaration order
+	 * @return the second layer
+	 */
+	public Layer getSecond(int pair) {
+		return second[pair];
+	}
+}
@@ -0,0 +1,224 @@
+package rbadia.voidspace.main;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import rbadia.voidspace.model.BulletPool;
+import rbadia.voidspace.model.CollisionMask;
+import rbadia.voidspace.model.GameObject;
+
+/**
+ * Finds the bullets hitting each target of a tick, on several threads when there is
+ * enough work, and hands the hits out one at a time so that the game can respond to them
+ * in a fixed order.
+ * <p>
+ * Each tick goes through three steps, all started from the simulation thread:
+ * <ol>
+ * <li>{@link #start(BulletPool)} indexes the bullets in a {@link SpatialGrid}, and the targets
+ * are added with {@link #addTarget};</li>
+ * <li>{@link #detect()} finds every bullet that touched each target. Each target has its own
+ * hit buffer, written by a single task, so the targets can be checked in parallel on a
+ * {@link ForkJoinPool} without locks. When the bullets times the targets are fewer than the
+ * parallel threshold, the targets are checked one after the other on the calling thread,
+ * which is faster than handing them to other threads;</li>
+ * <li>{@link #firstHit(int)} then returns, target by target in the order the game asks,
+ * the lowest indexed bullet not hit yet. The buffers are sorted, so the result is the same
+ * however the tasks were scheduled, and the same as checking sequentially.</li>
+ * </ol>
+ * Bullets hit are marked with {@link #remove(int)} and taken out of the pool by
+ * {@link #finish()}. Once the buffers are big enough, a tick allocates nothing.
+ */
+public class CollisionPhase {
+	/** Default minimum number of bullet-target pairs to check in parallel. */
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 4096;
+
+	private final SpatialGrid grid;
+	private final ForkJoinPool pool;
+	private int parallelThreshold;
+
+	private BulletPool bullets;
+	private Target[] targets = new Target[8];
+	private int targetCount;
+	private final DetectAll detectAll = new DetectAll();
+
+	/**
+	 * A target of the current tick and the bullets that touched it.
+	 */
+	private final class Target extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		GameObject object;
+		CollisionMask mask;
+		int owner;
+		CollisionMask bulletMask;
+		// location when added, to tell if the object was moved away in response to a hit
+		int x;
+		int y;
+
+		final SpatialGrid.Hits hits = new SpatialGrid.Hits();
+
+		void detect() {
+			hits.clear();
+			grid.collect(object, mask, owner, bulletMask, hits);
+			hits.sort();
+		}
+
+		protected void compute() {
+			detect();
+		}
+	}
+
+	/**
+	 * Checks all the targets of the tick, one task per target.
+	 */
+	private final class DetectAll extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		protected void compute() {
+			for(int t = targetCount - 1; t > 0; t--){
+				targets[t].reinitialize();
+				targets[t].fork();
+			}
+			targets[0].detect();
+			for(int t = 1; t < targetCount; t++){
+				targets[t].join();
+			}
+		}
+	}
+
+	/**
+	 * Creates a new collision phase that checks large ticks on the common fork/join pool.
+	 * @param width the width of the playfield
+	 * @param height the height of the playfield
+	 */
+	public CollisionPhase(int width, int height) {
+		this(width, height, ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * Creates a new collision phase.
+	 * @param width the width of the playfield
+	 * @param height the height of the playfield
+	 * @param pool the pool large ticks are checked on
+	 * @param parallelThreshold the minimum number of bullet-target pairs to check in parallel
+	 */
+	public CollisionPhase(int width, int height, ForkJoinPool pool, int parallelThreshold) {
+		this.grid = new SpatialGrid(width, height);
+		this.pool = pool;
+		setParallelThreshold(parallelThreshold);
+	}
+
+	/**
+	 * Returns the minimum number of bullet-target pairs checked in parallel.
+	 * @return the parallel threshold
+	 */
+	public int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	/**
+	 * Sets the minimum number of bullet-target pairs checked in parallel.
+	 * @param parallelThreshold the parallel threshold, or {@link Integer#MAX_VALUE} to always
+	 * check sequentially
+	 */
+	public void setParallelThreshold(int parallelThreshold) {
+		if(parallelThreshold < 0){
+			throw new IllegalArgumentException("Invalid parallel threshold: " + parallelThreshold);
+		}
+		this.parallelThreshold = parallelThreshold;
+	}
+
+	/**
+	 * Starts the collision phase of a tick, indexing the current bullets.
+	 * @param bullets the bullets
+	 */
+	public void start(BulletPool bullets) {
+		this.bullets = bullets;
+		grid.build(bullets);
+		targetCount = 0;
+	}
+
+	/**
+	 * Adds a target to check the bullets of an owner against.
+	 * @param object the game object
+	 * @param mask the collision mask of the game object, or null to use its bounding box
+	 * @param owner the owner of the bullets that can hit it
+	 * @param bulletMask the collision mask of the bullets, or null to use their bounding box
+	 * @return the id of the target, to get its hits with
+	 */
+	public int addTarget(GameObject object, CollisionMask mask, int owner, CollisionMask bulletMask) {
+		if(targetCount == targets.length){
+			targets = Arrays.copyOf(targets, targets.length * 2);
+		}
+		Target target = targets[targetCount];
+		if(target == null){
+			target = new Target();
+			targets[targetCount] = target;
+		}
+		target.object = object;
+		target.mask = mask;
+		target.owner = owner;
+		target.bulletMask = bulletMask;
+		target.x = object.x;
+		target.y = object.y;
+		target.hits.clear();
+		return targetCount++;
+	}
+
+	/**
+	 * Finds the bullets that touched each target.
+	 */
+	public void detect() {
+		if(targetCount > 1 && (long) bullets.size() * targetCount >= parallelThreshold){
+			detectAll.reinitialize();
+			pool.invoke(detectAll);
+		}
+		else{
+			for(int t = 0; t < targetCount; t++){
+				targets[t].detect();
+			}
+		}
+	}
+
+	/**
+	 * Returns the lowest indexed bullet that touched a target and has not been hit yet.
+	 * A target that has been moved since it was added, because it was destroyed or
+	 * respawned in response to another hit, is not hit anymore.
+	 * @param target the id of the target
+	 * @return the index of the bullet, or -1 if there is none
+	 */
+	public int firstHit(int target) {
+		Target t = targets[target];
+		if(t.object.x != t.x || t.object.y != t.y){
+			return -1;
+		}
+		for(int k = 0; k < t.hits.size(); k++){
+			int bullet = t.hits.get(k);
+			if(!grid.isHit(bullet)){
+				return bullet;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Marks a bullet as hit: it is not returned by {@link #firstHit(int)} anymore, and is
+	 * taken out of the pool by {@link #finish()}.
+	 * @param bullet the index of the bullet
+	 */
+	public void remove(int bullet) {
+		grid.remove(bullet);
+	}
+
+	/**
+	 * Ends the collision phase of the tick, taking the bullets hit out of the pool.
+	 */
+	public void finish() {
+		grid.removeHits();
+		for(int t = 0; t < targetCount; t++){
+			targets[t].object = null;
+		}
+		targetCount = 0;
+	}
+}
@@ -0,0 +1,82 @@
+package rbadia.voidspace.sounds;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded queue of int commands passed from any number of producer threads to one
+ * consumer thread, without locks and without allocating.
+ * <p>
+ * Each slot of the ring has a sequence number telling whose turn it is: a producer claims
+ * the next slot by advancing the tail when the slot's sequence equals the tail, writes its
+ * command and then publishes the slot by advancing the sequence; the consumer reads a slot
+ * once its sequence shows it was published, and hands it back to the producers for the
+ * next lap of the ring. A producer finding the queue full gives up instead of waiting.
+ */
+public class CommandQueue {
+	/** Returned by {@link #poll()} when the queue is empty. */
+	public static final int EMPTY = -1;
+
+	private final int mask;
+	private final int[] commands;
+	private final AtomicLongArray sequences;
+	private final AtomicLong tail = new AtomicLong();
+	// only read and written by the consumer
+	private long head;
+
+	/**
+	 * Creates an empty queue.
+	 * @param capacity the maximum number of commands waiting, a power of two
+	 */
+	public CommandQueue(int capacity) {
+		if(capacity < 1 || Integer.bitCount(capacity) != 1){
+			throw new IllegalArgumentException("Invalid command queue capacity: " + capacity);
+		}
+		this.mask = capacity - 1;
+		this.commands = new int[capacity];
+		this.sequences = new AtomicLongArray(capacity);
+		for(int i = 0; i < capacity; i++){
+			sequences.set(i, i);
+		}
+	}
+
+	/**
+	 * Adds a command at the end of the queue. May be called by any thread.
+	 * @param command the command, not negative
+	 * @return true if the command was added, false if the queue was full
+	 */
+	public boolean offer(int command) {
+		long position = tail.get();
+		while(true){
+			int slot = (int) (position & mask);
+			long wait = sequences.get(slot) - position;
+			if(wait == 0){
+				if(tail.compareAndSet(position, position + 1)){
+					commands[slot] = command;
+					sequences.set(slot, position + 1);
+					return true;
+				}
+			}
+			else if(wait < 0){
+				// the consumer hasn't freed the slot from the last lap yet
+				return false;
+			}
+			position = tail.get();
+		}
+	}
+
+	/**
+	 * Removes the command at the head of the queue. Only the consumer thread may call this.
+	 * @return the command, or {@link #EMPTY} if there is none
+	 */
+	public int poll() {
+		int slot = (int) (head & mask);
+		if(sequences.get(slot) != head + 1){
+			return EMPTY;
+		}
+		int command = commands[slot];
+		sequences.set(slot, head + mask + 1);
+		head++;
+		return command;
+	}
+}
@@ -0,0 +1,141 @@
+package rbadia.voidspace.graphics;
+
+import java.util.Arrays;
+
+/**
+ * The rectangles of a frame that were drawn on, clipped to the screen, to only erase and
+ * repaint the parts of the screen that change from one frame to the next.
+ * <p>
+ * Rectangles may overlap; they are not merged, so {@link #getArea()} counts the overlaps
+ * more than once and errs on the side of redrawing the whole frame. The rectangles are held
+ * in parallel arrays that double when full; once they are big enough, a frame allocates nothing.
+ */
+public class DirtyRegions {
+	private final int width;
+	private final int height;
+
+	private int size;
+	private long area;
+	private int[] x = new int[64];
+	private int[] y = new int[64];
+	private int[] w = new int[64];
+	private int[] h = new int[64];
+
+	/**
+	 * Creates an empty set of regions.
+	 * @param width the width of the screen
+	 * @param height the height of the screen
+	 */
+	public DirtyRegions(int width, int height) {
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * Adds a rectangle. The parts outside the screen are left out.
+	 * @param x the x coordinate of the rectangle
+	 * @param y the y coordinate of the rectangle
+	 * @param width the width of the rectangle
+	 * @param height the height of the rectangle
+	 */
+	public void add(int x, int y, int width, int height) {
+		int x0 = Math.max(0, x);
+		int y0 = Math.max(0, y);
+		int x1 = Math.min(this.width, x + width);
+		int y1 = Math.min(this.height, y + height);
+		if(x0 >= x1 || y0 >= y1){
+			return;
+		}
+		if(size == this.x.length){
+			int capacity = size * 2;
+			this.x = Arrays.copyOf(this.x, capacity);
+			this.y = Arrays.copyOf(this.y, capacity);
+			this.w = Arrays.copyOf(this.w, capacity);
+			this.h = Arrays.copyOf(this.h, capacity);
+		}
+		this.x[size] = x0;
+		this.y[size] = y0;
+		this.w[size] = x1 - x0;
+		this.h[size] = y1 - y0;
+		area += (long) (x1 - x0) * (y1 - y0);
+		size++;
+	}
+
+	/**
+	 * Adds all the rectangles of other regions.
+	 * @param other the regions to add
+	 */
+	public void addAll(DirtyRegions other) {
+		for(int i = 0; i < other.size; i++){
+			add(other.x[i], other.y[i], other.w[i], other.h[i]);
+		}
+	}
+
+	/**
+	 * Removes all the rectangles. The capacity is kept.
+	 */
+	public void clear() {
+		size = 0;
+		area = 0;
+	}
+
+	/**
+	 * Returns the number of rectangles.
+	 * @return the number of rectangles
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the sum of the areas of the rectangles, overlaps included.
+	 * @return the area in pixels
+	 */
+	public long getArea() {
+		return area;
+	}
+
+	/**
+	 * Returns the area of the rectangles as a fraction of the screen.
+	 * @return the fraction of the screen, which may be over 1 if rectangles overlap
+	 */
+	public float getCoverage() {
+		return (float) area / ((long) width * height);
+	}
+
+	/**
+	 * Returns the x coordinate of a rectangle, clipped to the screen.
+	 * @param i the index of the rectangle, from 0 to {@link #size()} - 1, in the order they were added
+	 * @return the x coordinate
+	 */
+	public int getX(int i) {
+		return x[i];
+	}
+
+	/**
+	 * Returns the y coordinate of a rectangle, clipped to the screen.
+	 * @param i the index of the rectangle, from 0 to {@link #size()} - 1, in the order they were added
+	 * @return the y coordinate
+	 */
+	public int getY(int i) {
+		return y[i];
+	}
+
+	/**
+	 * Returns the width of a rectangle, clipped to the screen.
+	 * @param i the index of the rectangle, from 0 to {@link #size()} - 1, in the order they were added
+	 * @return the width, at least 1
+	 */
+	public int getWidth(int i) {
+		return w[i];
+	}
+
+	/**
+	 * Returns the height of a rectangle, clipped to the screen.
+	 * @param i the index of the rectangle, from 0 to {@link #size()} - 1, in the order they were added
+	 * @return the height, at least 1
+	 */
+	public int getHeight(int i) {
+		return h[i];
+	}
+}
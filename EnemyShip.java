@@ -1,8 +1,6 @@
 package rbadia.voidspace.model;
 
-import java.util.Random;
-
-import rbadia.voidspace.main.GameScreen;
+import java.util.SplittableRandom;
 
 /**
  * Represents enemy ship.
@@ -18,14 +16,15 @@ public class EnemyShip extends Ship {
 	
 	public static final int DEFAULT_SPEED = 4;
 
-	Random rand = new Random();
 	/**
 	 * Creates new enemy ship.
-	 * @param screen the game screen
+	 * @param playfield the playfield
+	 * @param rand the random stream for enemy ship locations
 	 */
-	public EnemyShip(GameScreen screen) {
-		super(screen);
-		this.setLocation(rand.nextInt(screen.getWidth() - super.getShipWidth()),0);
+	public EnemyShip(Playfield playfield, SplittableRandom rand) {
+		super(playfield);
+		this.setLocation(rand.nextInt(playfield.getWidth() - super.getShipWidth()),0);
+		this.savePosition();
 		//this.setLocation((screen.getWidth() - super.getShipWidth())/2,
 				//screen.getHeight() - super.getShipHeight() - Y_OFFSET);
 		
@@ -0,0 +1,149 @@
+package rbadia.voidspace.main;
+
+import java.awt.DisplayMode;
+import java.awt.GraphicsDevice;
+import java.awt.GraphicsEnvironment;
+
+/**
+ * Paces the frames of the {@link RenderLoop} to the display's refresh rate, and sheds
+ * frames when the machine can't keep up, so that the simulation keeps its ticks on time
+ * and only the rendering gets choppier.
+ * <p>
+ * A frame is skipped when it is already past the time of the next one, or when the
+ * simulation is falling behind, but never more than a given number of frames in a row,
+ * so the screen is still updated on a very slow machine.
+ * <p>
+ * Only the render thread may pace frames. The frame counts can be read from any thread.
+ */
+public class FramePacer {
+	/** Frame rate used when the display's refresh rate is unknown. */
+	public static final int DEFAULT_FRAME_RATE = 60;
+	/** Default maximum number of frames skipped in a row. */
+	public static final int DEFAULT_MAX_FRAME_SKIP = 4;
+
+	private static final long NANOS_PER_SECOND = 1000000000L;
+
+	private final long frameNanos;
+	private final int maxFrameSkip;
+
+	// time the next frame is due, or -1 before the first frame
+	private long nextFrameTime = -1;
+	private int consecutiveSkips;
+
+	private volatile long drawnFrames;
+	private volatile long skippedFrames;
+
+	/**
+	 * Creates a new frame pacer.
+	 * @param frameRate the number of frames per second, or 0 to draw frames as fast as possible
+	 * @param maxFrameSkip the maximum number of frames skipped in a row, or 0 to never skip
+	 */
+	public FramePacer(int frameRate, int maxFrameSkip){
+		if(frameRate < 0 || maxFrameSkip < 0){
+			throw new IllegalArgumentException("Invalid frame pacing: frameRate=" + frameRate
+					+ ", maxFrameSkip=" + maxFrameSkip);
+		}
+		this.frameNanos = frameRate == 0 ? 0 : NANOS_PER_SECOND / frameRate;
+		this.maxFrameSkip = maxFrameSkip;
+	}
+
+	/**
+	 * Returns the refresh rate of a display, if it is known.
+	 * @param device the display's graphics device, or null for the default screen
+	 * @return the refresh rate in Hz, or {@link #DEFAULT_FRAME_RATE} if it is unknown
+	 */
+	public static int detectRefreshRate(GraphicsDevice device){
+		if(GraphicsEnvironment.isHeadless()){
+			return DEFAULT_FRAME_RATE;
+		}
+		if(device == null){
+			device = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice();
+		}
+		DisplayMode displayMode = device.getDisplayMode();
+		if(displayMode == null || displayMode.getRefreshRate() == DisplayMode.REFRESH_RATE_UNKNOWN){
+			return DEFAULT_FRAME_RATE;
+		}
+		return displayMode.getRefreshRate();
+	}
+
+	/**
+	 * Sleeps until the next frame is due, or just gives other threads a chance to run
+	 * if the frame rate is not limited.
+	 * @return the current time, as given by {@link System#nanoTime()}
+	 */
+	public long waitForNextFrame(){
+		if(frameNanos == 0){
+			Thread.yield();
+			return System.nanoTime();
+		}
+
+		long currentTime = System.nanoTime();
+		if(nextFrameTime < 0){
+			nextFrameTime = currentTime;
+		}
+		long remaining = nextFrameTime - currentTime;
+		if(remaining > 0){
+			try{
+				Thread.sleep(remaining / 1000000, (int) (remaining % 1000000));
+			}
+			catch(InterruptedException e){
+				e.printStackTrace();
+			}
+			currentTime = System.nanoTime();
+		}
+		nextFrameTime += frameNanos;
+		return currentTime;
+	}
+
+	/**
+	 * Decides whether the frame that is due should be skipped.
+	 * @param currentTime the time returned by {@link #waitForNextFrame()}
+	 * @param simulationBehind true if the simulation is falling behind and needs the CPU
+	 * @return true if the frame should not be drawn
+	 */
+	public boolean skipFrame(long currentTime, boolean simulationBehind){
+		// late if the next frame is already due
+		boolean late = frameNanos != 0 && currentTime - nextFrameTime >= 0;
+		if((late || simulationBehind) && consecutiveSkips < maxFrameSkip){
+			consecutiveSkips++;
+			skippedFrames++;
+			return true;
+		}
+		if(late){
+			// skipped as many frames as allowed, start the schedule over from this one
+			nextFrameTime = currentTime + frameNanos;
+		}
+		consecutiveSkips = 0;
+		drawnFrames++;
+		return false;
+	}
+
+	/**
+	 * Returns the number of frames drawn so far.
+	 * @return the number of frames drawn
+	 */
+	public long getDrawnFrames() {
+		return drawnFrames;
+	}
+
+	/**
+	 * Returns the number of frames skipped so far. A steadily growing count means the
+	 * machine is too slow for the game's frame rate.
+	 * @return the number of frames skipped
+	 */
+	public long getSkippedFrames() {
+		return skippedFrames;
+	}
+
+	/**
+	 * Returns a one line summary of the frames drawn and skipped.
+	 * @return the report
+	 */
+	public String getReport() {
+		long drawn = drawnFrames;
+		long skipped = skippedFrames;
+		long total = drawn + skipped;
+		return "Frames drawn: " + drawn + ", skipped: " + skipped
+				+ String.format(" (%.1f%%)", total == 0 ? 0.0 : 100.0 * skipped / total);
+	}
+}
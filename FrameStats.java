@@ -0,0 +1,76 @@
+package rbadia.voidspace.main;
+
+/**
+ * Timings of the phases of the game and render loops, one {@link LatencyHistogram} per phase.
+ * The simulation phases are recorded by the simulation thread and the drawing phases by
+ * the render thread, so each histogram has a single writer.
+ */
+public class FrameStats {
+	/**
+	 * The timed phases of a simulation tick and of a rendered frame.
+	 */
+	public enum Phase {
+		/** Checking the game and level ending conditions. */
+		CONDITIONS,
+		/** Moving the game objects. */
+		MOVE,
+		/** Handling the user input. */
+		INPUT,
+		/** Checking for collisions between the game objects. */
+		COLLIDE,
+		/** Copying the game state for the render thread. */
+		SNAPSHOT,
+		/** Drawing a frame into the back buffer. */
+		DRAW,
+		/** Handing the drawn frame to the screen. */
+		PRESENT
+	}
+
+	private final LatencyHistogram[] histograms;
+
+	/**
+	 * Creates a new set of empty phase timings.
+	 */
+	public FrameStats() {
+		Phase[] phases = Phase.values();
+		histograms = new LatencyHistogram[phases.length];
+		for(int i = 0; i < phases.length; i++){
+			histograms[i] = new LatencyHistogram(phases[i].name().toLowerCase());
+		}
+	}
+
+	/**
+	 * Records how long a phase took.
+	 * @param phase the phase
+	 * @param startTime the time the phase started, as given by {@link System#nanoTime()}
+	 * @return the current time, so that it can be used as the start of the next phase
+	 */
+	public long record(Phase phase, long startTime) {
+		long currentTime = System.nanoTime();
+		histograms[phase.ordinal()].record(currentTime - startTime);
+		return currentTime;
+	}
+
+	/**
+	 * Returns the timings of a phase.
+	 * @param phase the phase
+	 * @return the phase's histogram
+	 */
+	public LatencyHistogram getHistogram(Phase phase) {
+		return histograms[phase.ordinal()];
+	}
+
+	/**
+	 * Returns a report of all the phases that were timed, one line per phase.
+	 * @return the report
+	 */
+	public String getReport() {
+		StringBuilder report = new StringBuilder("Frame timings:");
+		for(LatencyHistogram histogram : histograms){
+			if(histogram.getCount() > 0){
+				report.append(System.lineSeparator()).append("  ").append(histogram);
+			}
+		}
+		return report.toString();
+	}
+}
@@ -0,0 +1,21 @@
+package rbadia.voidspace.main;
+
+/**
+ * Source of the time seen by the game logic. Game time is measured with the game clock
+ * instead of the system clock, so that the simulation can be run faster or slower than
+ * real time and replayed exactly (see {@link TickClock}). The game's delays and cadences
+ * are run by a {@link TickScheduler}, which counts the same ticks.
+ */
+public interface GameClock {
+
+	/**
+	 * Returns the current game time.
+	 * @return the current game time in milliseconds
+	 */
+	long currentTimeMillis();
+
+	/**
+	 * Notifies the clock that a new simulation tick is starting.
+	 */
+	void tick();
+}
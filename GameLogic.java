@@ -1,58 +1,170 @@
 package rbadia.voidspace.main;
 
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
+import java.awt.Rectangle;
 import java.util.ArrayList;
-import java.util.List;
-
-import javax.swing.Timer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
 
+import rbadia.voidspace.main.CollisionMatrix.Layer;
 import rbadia.voidspace.model.Asteroid;
-import rbadia.voidspace.model.Bullet;
+import rbadia.voidspace.model.BulletPool;
+import rbadia.voidspace.model.CollisionMask;
+import rbadia.voidspace.model.CollisionMasks;
 import rbadia.voidspace.model.EnemyShip;
+import rbadia.voidspace.model.GameObject;
+import rbadia.voidspace.model.Playfield;
 import rbadia.voidspace.model.Ship;
 import rbadia.voidspace.sounds.SoundManager;
 import rbadia.voidspace.model.BossShip;
 
 
 /**
- * Handles general game logic and status.
+ * Handles general game logic and status. All the game objects are owned and
+ * updated by the simulation thread, see {@link GameLoop}.
+ * <p>
+ * The game logic only needs the dimensions of a {@link Playfield}, so it runs just
+ * the same without a game screen (see {@link HeadlessMain}).
  */
 public class GameLogic {
-	protected GameScreen gameScreen;
+	private static final int NEW_SHIP_DELAY = 500;
+	private static final int NEW_ASTEROID_DELAY = 500;
+	private static final int NEW_ENEMY_SHIP_DELAY = 2000;
+	private static final int GET_READY_DELAY = 1500;
+	private static final int GAME_OVER_DELAY = 3000;
+	// average firing intervals, the same as the old 1 in 100 and 1 in 25 chance per frame at 60 fps
+	private static final int ENEMY_FIRE_INTERVAL = 1667;
+	private static final int BOSS_FIRE_INTERVAL = 417;
+
+	protected Playfield playfield;
 	protected GameStatus status;
 	private SoundManager soundMan;
+	private GameClock clock;
+	private GameRandom random;
 	protected int maxAsteroids = 3;
 	
 	private Ship ship;
-	protected List<Bullet> bullets;
-	
 	private EnemyShip enemyShip;
-	protected List<Bullet> enemyBullets;
-	
 	private BossShip bossShip;
-	protected List<Bullet> bossBullets;
+
+	// the bullets of the ship, the enemy ship and the boss, told apart by their owner
+	protected BulletPool bullets = new BulletPool();
+	// which objects collide with which, in the order their collisions are checked
+	private final CollisionMatrix collisionMatrix = new CollisionMatrix();
+	// the collisions of the current tick, and what they destroyed
+	private final CollisionEvents events = new CollisionEvents();
+	private final boolean[][] destroyed = new boolean[Layer.values().length][1];
+	// id in the collision phase of the first target of each pair of layers with bullets
+	private int[] pairTargets;
+	// finds the bullets hitting each target, sized to the playfield when a game starts
+	private CollisionPhase collisions;
+	private int parallelThreshold = CollisionPhase.DEFAULT_PARALLEL_THRESHOLD;
+
+	// sprite masks for pixel-perfect collisions, or null to collide bounding boxes
+	private CollisionMask shipMask;
+	private CollisionMask bulletMask;
+	private CollisionMask enemyBulletMask;
+	private CollisionMask asteroidMask;
+	private CollisionMask enemyMask;
+	private CollisionMask bossMask;
 	
 	private ArrayList<Asteroid> asteroids = new ArrayList<Asteroid>(maxAsteroids);
 	
+	private TickScheduler scheduler;
+
+	// takes down the "Get Ready", "Game Over" or "Game Won" message
+	private final TickScheduler.Task messageEnd = new TickScheduler.Task(){
+		public void run() {
+			endMessage();
+		}
+	};
+	private final TickScheduler.Task shipRespawn = new TickScheduler.Task(){
+		public void run() {
+			status.setNewShip(false);
+			newShip(playfield);
+		}
+	};
+	private final TickScheduler.Task enemyShipRespawn = new TickScheduler.Task(){
+		public void run() {
+			status.setNewEnemyShip(false);
+			newEnemyShip(playfield);
+		}
+	};
+	private final AsteroidRespawn[] asteroidRespawns = new AsteroidRespawn[maxAsteroids];
+	private final TickScheduler.Task enemyFire = new TickScheduler.Task(){
+		public void run() {
+			if(isInPlay() && status.getAsteroidsDestroyed() >= 15 && !status.isNewEnemyShip()){
+				fireEnemyBullet();
+			}
+			scheduler.scheduleMillis(this, ENEMY_FIRE_INTERVAL);
+		}
+	};
+	private final TickScheduler.Task bossFire = new TickScheduler.Task(){
+		public void run() {
+			if(isInPlay() && status.getAsteroidsDestroyed() >= 50 && !bossDestroyed){
+				fireBossBullet();
+			}
+			scheduler.scheduleMillis(this, BOSS_FIRE_INTERVAL);
+		}
+	};
+
+	private Rectangle asteroidExplosion;
+	private Rectangle shipExplosion;
+	private Rectangle enemyShipExplosion;
+	private Rectangle bossShipExplosion;
+
+	private SplittableRandom rand;
+
+	// default values for the equation of a circle
+	private boolean doOnce = true;
+	private int h;
+	private int k;	
+	private int radius;  
+	private int xCoord;				
+	private int yCoord;
+
+	boolean circleBottom = true;
+	boolean bossDestroyed = false;
+
+	// default value for the direction of the enemy ship
+	private int direction = 1;
 	
 	/**
 	 * Create a new game logic handler
-	 * @param gameScreen the game screen
+	 * @param playfield the playfield, usually the game screen
+	 * @param soundMan the sound manager
+	 * @param clock the game clock
+	 * @param scheduler the scheduler all game delays and cadences are run by
+	 * @param random the source of all the game's random numbers
 	 */
-	public GameLogic(GameScreen gameScreen){
-		this.gameScreen = gameScreen;
+	public GameLogic(Playfield playfield, SoundManager soundMan, GameClock clock, TickScheduler scheduler,
+			GameRandom random){
+		this.playfield = playfield;
 		
 		// initialize game status information
 		status = new GameStatus();
-		// initialize the sound manager
-		soundMan = new SoundManager();
+		this.soundMan = soundMan;
+		this.clock = clock;
+		this.scheduler = scheduler;
+		this.random = random;
+		this.rand = random.getStream(GameRandom.Stream.ASTEROIDS);
 		
 		// init some variables
-		bullets = new ArrayList<Bullet>();
-		enemyBullets = new ArrayList<Bullet>();
-		bossBullets = new ArrayList<Bullet>();	
 		asteroids = new ArrayList<Asteroid>();  
+		for (int i = 0; i < asteroidRespawns.length; i++) {
+			asteroidRespawns[i] = new AsteroidRespawn(i);
+		}
+
+		// player bullets hit asteroids, the enemy and the boss; everything else hits the
+		// player's ship
+		collisionMatrix.enable(Layer.PLAYER_BULLET, Layer.ASTEROID);
+		collisionMatrix.enable(Layer.PLAYER, Layer.ASTEROID);
+		collisionMatrix.enable(Layer.PLAYER, Layer.ENEMY);
+		collisionMatrix.enable(Layer.PLAYER_BULLET, Layer.ENEMY);
+		collisionMatrix.enable(Layer.ENEMY_BULLET, Layer.PLAYER);
+		collisionMatrix.enable(Layer.PLAYER, Layer.BOSS);
+		collisionMatrix.enable(Layer.PLAYER_BULLET, Layer.BOSS);
+		collisionMatrix.enable(Layer.BOSS_BULLET, Layer.PLAYER);
+		pairTargets = new int[collisionMatrix.getPairCount()];
 	}
 
 	/**
@@ -72,11 +184,63 @@ public class GameLogic {
 	}
 
 	/**
-	 * Returns the game screen.
-	 * @return the game screen
+	 * Returns the game clock.
+	 * @return the game clock
 	 */
-	public GameScreen getGameScreen() {
-		return gameScreen;
+	public GameClock getClock() {
+		return clock;
+	}
+
+	/**
+	 * Returns the scheduler of the game delays.
+	 * @return the scheduler
+	 */
+	public TickScheduler getScheduler() {
+		return scheduler;
+	}
+
+	/**
+	 * Returns the minimum number of bullet-target pairs checked for collisions in parallel.
+	 * @return the parallel threshold
+	 */
+	public int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	/**
+	 * Sets the minimum number of bullet-target pairs checked for collisions in parallel
+	 * (see {@link CollisionPhase}).
+	 * @param parallelThreshold the parallel threshold, or {@link Integer#MAX_VALUE} to always
+	 * check sequentially
+	 */
+	public void setParallelThreshold(int parallelThreshold) {
+		this.parallelThreshold = parallelThreshold;
+		if(collisions != null){
+			collisions.setParallelThreshold(parallelThreshold);
+		}
+	}
+
+	/**
+	 * Sets the sprite masks used to check collisions pixel by pixel. Without them, objects
+	 * collide as soon as their bounding boxes touch.
+	 * @param masks the collision masks, or null to collide bounding boxes
+	 */
+	public void setCollisionMasks(CollisionMasks masks) {
+		boolean set = masks != null;
+		shipMask = set ? masks.getShipMask() : null;
+		bulletMask = set ? masks.getBulletMask() : null;
+		enemyBulletMask = set ? masks.getEnemyBulletMask() : null;
+		asteroidMask = set ? masks.getAsteroidMask() : null;
+		enemyMask = set ? masks.getEnemyMask() : null;
+		bossMask = set ? masks.getBossMask() : null;
+	}
+
+	/**
+	 * Returns the playfield.
+	 * @return the playfield
+	 */
+	public Playfield getPlayfield() {
+		return playfield;
 	}
 
 	/**
@@ -86,11 +250,14 @@ public class GameLogic {
 		
 		status.setGameStarting(true);
 		soundMan.playArcadeFunk();
+
+		// forget the delays of the previous game
+		scheduler.cancelAll();
 		
 		// init game variables
-		bullets = new ArrayList<Bullet>();
-		enemyBullets = new ArrayList<Bullet>();
-		bossBullets = new ArrayList<Bullet>();
+		bullets.clear();
+		collisions = new CollisionPhase(playfield.getWidth(), playfield.getHeight());
+		collisions.setParallelThreshold(parallelThreshold);
 		asteroids = new ArrayList<Asteroid>();  
 		
 		status.setShipsLeft(3);
@@ -103,26 +270,19 @@ public class GameLogic {
         }
 		
 		// init the ship , enemy ship, boss and asteroids
-        newShip(gameScreen);       
-        newEnemyShip(gameScreen);      
-        newBossShip(gameScreen);
+        newShip(playfield);       
+        newEnemyShip(playfield);      
+        newBossShip(playfield);
           
 		for (int i = 0; i < maxAsteroids; i++) {
-	    	newAsteroid(gameScreen,i);
+	    	newAsteroid(playfield,i);
 	    }
 
-        // prepare game screen
-        gameScreen.doNewGame();
-        
+        scheduler.scheduleMillis(enemyFire, ENEMY_FIRE_INTERVAL);
+        scheduler.scheduleMillis(bossFire, BOSS_FIRE_INTERVAL);
+
         // delay to display "Get Ready" message for 1.5 seconds
-		Timer timer = new Timer(1500, new ActionListener(){
-			public void actionPerformed(ActionEvent e) {
-				status.setGameStarting(false);
-				status.setGameStarted(true);
-			}
-		});
-		timer.setRepeats(false);
-		timer.start();
+        scheduler.scheduleMillis(messageEnd, GET_READY_DELAY);
 	}
 	
 
@@ -138,29 +298,45 @@ public class GameLogic {
 		}
 		// check game won conditions
 		if(!status.isGameWon() && status.isGameStarted()) {
-			if(gameScreen.bossDestroyed){
+			if(bossDestroyed){
 				gameWon();
 			}
 		}
 	}
 	
+	/**
+	 * Takes down the current message once its time passes.
+	 */
+	private void endMessage(){
+		if(status.isGameStarting()){
+			status.setGameStarting(false);
+			status.setGameStarted(true);
+		}
+		if(status.isGameOver()){
+			status.setGameOver(false);
+		}
+		if(status.isGameWon()){
+			status.setGameWon(false);
+			bossDestroyed = false;
+		}
+	}
+
+	/**
+	 * Indicates if the game is being played, as opposed to a message screen being displayed.
+	 */
+	private boolean isInPlay(){
+		return status.isGameStarted() && !status.isGameStarting() && !status.isGameOver() && !status.isGameWon();
+	}
+
 	/**
 	 * Actions to take when the game is over.
 	 */
 	public void gameOver(){
 		status.setGameStarted(false);
 		status.setGameOver(true);
-		gameScreen.doGameOver();
 		
         // delay to display "Game Over" message for 3 seconds
-		Timer timer = new Timer(3000, new ActionListener(){
-			public void actionPerformed(ActionEvent e) {
-				status.setGameOver(false);
-				
-			}
-		});
-		timer.setRepeats(false);
-		timer.start();
+		scheduler.scheduleMillis(messageEnd, GAME_OVER_DELAY);
 	}
 	
 	/**
@@ -169,25 +345,821 @@ public class GameLogic {
 	public void gameWon(){
 		status.setGameStarted(false);
 		status.setGameWon(true);
-		gameScreen.doGameWon();
 		
-        // delay to display "Game Over" message for 3 seconds
-		Timer timer = new Timer(3000, new ActionListener(){
-			public void actionPerformed(ActionEvent e) {
-				status.setGameWon(false);
-				gameScreen.bossDestroyed = false;
+        // delay to display "Game Won" message for 3 seconds
+		scheduler.scheduleMillis(messageEnd, GAME_OVER_DELAY);
+	}
+	
+	/**
+	 * Moves the game objects by one simulation tick, and raises the level as asteroids
+	 * are destroyed. Firing and respawning are scheduled tasks, run by {@link #startTick()}.
+	 */
+	public void moveObjects(){
+		EnemyShip enemy = this.enemyShip;
+		BossShip boss = this.bossShip;
+
+		// nothing moves while a message screen is displayed
+		if(status.isGameStarting() || status.isGameOver() || status.isGameWon() || !status.isGameStarted()){
+			return;
+		}
+
+		// move bullets
+		for(int i=0; i<bullets.size(); i++){
+			boolean remove = moveBullet(i);
+			if(remove){
+				// the last bullet takes its place, move that one next
+				bullets.remove(i);
+				i--;
 			}
-		});
-		timer.setRepeats(false);
-		timer.start();
+		}
+
+		if(status.getAsteroidsDestroyed() ==  5){status.setLevel(2);}
+		if(status.getAsteroidsDestroyed() == 15){status.setLevel(3);}
+		if(status.getAsteroidsDestroyed() == 25){status.setLevel(4);}
+		if(status.getAsteroidsDestroyed() == 35){status.setLevel(5);}	
+		if(status.getAsteroidsDestroyed() == 50){status.setLevel(6);}
+
+		if (status.getAsteroidsDestroyed() < 5) {
+			// move asteroid
+			if(!status.isNewAsteroid()[0]) {
+				switch(asteroids.get(0).getTrajectory()){
+
+				case 0: // vertical
+
+					if( isOnScreen((int)asteroids.get(0).getX(), (int) asteroids.get(0).getY()) ){
+						asteroids.get(0).translate(0, asteroids.get(0).getSpeed());
+						break;
+					}
+					else {
+						asteroids.get(0).jumpTo(rand.nextInt(playfield.getWidth() - asteroids.get(0).width),0);
+					}
+					//sets new trajectory
+					asteroids.get(0).setTrajectory(rand.nextInt(5));
+
+					chooseNextLocation(0);
+
+
+					break;
+
+
+				case 1: // diagonal to right
+
+					if( (isOnScreen((int)asteroids.get(0).getX(), (int) asteroids.get(0).getY())) || (isOnScreen((int)asteroids.get(0).getX() + asteroids.get(0).getAsteroidWidth(), (int) asteroids.get(0).getY() + asteroids.get(0).getAsteroidHeight())) ){
+						asteroids.get(0).translate(1, asteroids.get(0).getSpeed()); //asteroid.getSpeed());
+						break;
+					}
+					else {
+						asteroids.get(0).jumpTo(rand.nextInt(playfield.getWidth() - asteroids.get(0).width),0);
+					}
+					//sets new trajectory
+					asteroids.get(0).setTrajectory(rand.nextInt(5));
+
+
+					chooseNextLocation(0);
+
+					break;
+
+
+				case 2: // diagonal left
+
+					if( (isOnScreen((int)asteroids.get(0).getX(), (int) asteroids.get(0).getY())) || (isOnScreen((int)asteroids.get(0).getX() + asteroids.get(0).getAsteroidWidth(), (int) asteroids.get(0).getY() + asteroids.get(0).getAsteroidHeight())) ){
+						asteroids.get(0).translate(-1, asteroids.get(0).getSpeed());
+						break;
+					}
+					else {
+						asteroids.get(0).jumpTo(rand.nextInt(playfield.getWidth() - asteroids.get(0).width),0);
+					}
+					//sets new trajectory
+					asteroids.get(0).setTrajectory(rand.nextInt(5));
+
+
+					chooseNextLocation(0);
+
+					break;
+
+				case 3: // diagonal right
+
+					if( (isOnScreen((int)asteroids.get(0).getX(), (int) asteroids.get(0).getY())) || (isOnScreen((int)asteroids.get(0).getX() + asteroids.get(0).getAsteroidWidth(), (int) asteroids.get(0).getY() + asteroids.get(0).getAsteroidHeight())) ){
+						asteroids.get(0).translate(2, asteroids.get(0).getSpeed());
+						break;
+					}
+					else {
+						asteroids.get(0).jumpTo(rand.nextInt(playfield.getWidth() - asteroids.get(0).width),0);
+					}
+					//sets new trajectory
+					asteroids.get(0).setTrajectory(rand.nextInt(5));
+
+
+					chooseNextLocation(0);
+
+					break;
+
+				case 4:  //diagonal left
+
+					if((isOnScreen((int)asteroids.get(0).getX(), (int) asteroids.get(0).getY())) || (isOnScreen((int)asteroids.get(0).getX() + asteroids.get(0).getAsteroidWidth(), (int) asteroids.get(0).getY() + asteroids.get(0).getAsteroidHeight())) ){
+						asteroids.get(0).translate(-2, asteroids.get(0).getSpeed());
+						break;
+					}
+					else {
+						asteroids.get(0).jumpTo(rand.nextInt(playfield.getWidth() - asteroids.get(0).width),0);
+					}
+					//sets new trajectory
+					asteroids.get(0).setTrajectory(rand.nextInt(5));
+
+
+					chooseNextLocation(0);
+
+					break;
+
+
+				}
+			}
+
+			// a destroyed asteroid is drawn again by its respawn task
+		}
+
+		else {
+
+			for (int i = 0; i < maxAsteroids; i++) {
+				if(!status.isNewAsteroid()[i]) {
+
+					switch(asteroids.get(i).getTrajectory()){
+
+					case 0: // vertical
+
+						if( isOnScreen((int)asteroids.get(i).getX(), (int) asteroids.get(i).getY()) ){
+							asteroids.get(i).translate(0, asteroids.get(i).getSpeed());
+							break;
+						}
+						else {
+							asteroids.get(i).jumpTo(rand.nextInt(playfield.getWidth() - asteroids.get(i).width),0);
+						}
+						//sets new trajectory
+						asteroids.get(i).setTrajectory(rand.nextInt(5));
+						;
+
+						chooseNextLocation(i);
+
+
+						break;
+
+
+					case 1: // diagonal to right
+
+						if( (isOnScreen((int)asteroids.get(i).getX(), (int) asteroids.get(i).getY())) || (isOnScreen((int)asteroids.get(i).getX() + asteroids.get(i).getAsteroidWidth(), (int) asteroids.get(i).getY() + asteroids.get(i).getAsteroidHeight())) ){
+							asteroids.get(i).translate(1, asteroids.get(i).getSpeed()); //asteroid.getSpeed());
+							break;
+						}
+						else {
+							asteroids.get(i).jumpTo(rand.nextInt(playfield.getWidth() - asteroids.get(i).width),0);
+						}
+
+						//sets new trajectory
+						asteroids.get(i).setTrajectory(rand.nextInt(5));
+
+						chooseNextLocation(i);
+
+						break;
+
+
+					case 2: // diagonal left
+
+						if( (isOnScreen((int)asteroids.get(i).getX(), (int) asteroids.get(i).getY())) || (isOnScreen((int)asteroids.get(i).getX() + asteroids.get(i).getAsteroidWidth(), (int) asteroids.get(i).getY() + asteroids.get(i).getAsteroidHeight())) ){
+							asteroids.get(i).translate(-1, asteroids.get(i).getSpeed());
+							break;
+						}
+						else {
+							asteroids.get(i).jumpTo(rand.nextInt(playfield.getWidth() - asteroids.get(i).width),0);
+						}
+						//sets new trajectory
+						asteroids.get(i).setTrajectory(rand.nextInt(5));
+
+						chooseNextLocation(i);
+
+						break;
+
+					case 3: // diagonal right
+
+						if( (isOnScreen((int)asteroids.get(i).getX(), (int) asteroids.get(i).getY())) || (isOnScreen((int)asteroids.get(i).getX() + asteroids.get(i).getAsteroidWidth(), (int) asteroids.get(i).getY() + asteroids.get(i).getAsteroidHeight())) ){
+							asteroids.get(i).translate(2, asteroids.get(i).getSpeed());
+							break;
+						}
+						else {
+							asteroids.get(i).jumpTo(rand.nextInt(playfield.getWidth() - asteroids.get(i).width),0);
+						}
+						//sets new trajectory
+						asteroids.get(i).setTrajectory(rand.nextInt(5));
+
+						chooseNextLocation(i);
+
+						break;
+
+					case 4:  //diagonal left
+
+						if((isOnScreen((int)asteroids.get(i).getX(), (int) asteroids.get(i).getY())) || (isOnScreen((int)asteroids.get(i).getX() + asteroids.get(i).getAsteroidWidth(), (int) asteroids.get(i).getY() + asteroids.get(i).getAsteroidHeight())) ){
+							asteroids.get(i).translate(-2, asteroids.get(i).getSpeed());
+							break;
+						}
+						else {
+							asteroids.get(i).jumpTo(rand.nextInt(playfield.getWidth() - asteroids.get(i).width),0);
+						}
+						//sets new trajectory
+						asteroids.get(i).setTrajectory(rand.nextInt(5));
+
+						chooseNextLocation(i);
+
+						break;
+					}
+				}
+
+			}
+
+
+		}
+
+		if (status.getAsteroidsDestroyed() >= 15) {
+
+			// move enemy ship
+
+			int leftLimit = 0 ;
+			int rightLimit = playfield.getWidth() - enemy.getShipWidth();
+
+			if(!status.isNewEnemyShip()){	
+				if(enemy.getX() != rightLimit || enemy.getX() != leftLimit)  {
+					enemy.translate(direction,0);
+
+					if(enemy.getX() == rightLimit)
+						direction = -1;
+					else if(enemy.getX() == leftLimit)
+						direction = 1;
+
+					// bullets are fired by the enemy fire task
+				}
+				else{
+					status.setNewEnemyShip(true);	
+					scheduler.scheduleMillis(enemyShipRespawn, NEW_ENEMY_SHIP_DELAY);
+				}
+
+			}
+			// else a new one is drawn by the enemy ship respawn task
+
+
+		}
+
+		if (status.getAsteroidsDestroyed() >= 25) {
+			// increase asteroids speed 
+			for (int i = 0; i < asteroids.size(); i++){
+				asteroids.get(i).setSpeed(6);
+			}
+		}
+
+		if (status.getAsteroidsDestroyed() >= 35) {
+			// increase asteroids speed
+			for (int i = 0; i < asteroids.size(); i++){
+				asteroids.get(i).setSpeed(8);
+			}
+
+
+		}
+
+		if (status.getAsteroidsDestroyed() >= 50) {
+			// move boss ship
+			if(doOnce){
+				h = (int)boss.getX();
+				k = (int)boss.getY() -150;	
+				radius = 100;  
+				xCoord = h;				
+				yCoord = k+radius;
+				doOnce = false;
+			}
+
+			if(!bossDestroyed){
+				boss.setLocation(xCoord,yCoord);
+				// bullets are fired by the boss fire task
+
+				if(circleBottom){
+					xCoord += 1;
+					yCoord = (int) Math.sqrt(radius * radius - (xCoord - h) * (xCoord - h)) + k;
+					if(xCoord == (h + radius)){
+						circleBottom = false;
+					}
+				}
+
+				else {
+					xCoord -=1;
+					yCoord = (int) -(Math.sqrt(radius * radius - (xCoord - h) * (xCoord - h))) + k;
+					if(xCoord == (h - radius)){
+						circleBottom = true;
+					}
+
+				}				
+			}			
+			else{
+				//doesn't need to set new trajectory as there's only one boss
+				bossDestroyed = true;
+			}
+
+		}
+
+		// a destroyed ship is respawned by the ship respawn task
+	}
+
+	/**
+	 * Checks for collisions between the game objects after they have moved,
+	 * updating the score and removing the objects hit.
+	 */
+	public void checkCollisions(){
+		// nothing moves while a message screen is displayed
+		if(status.isGameStarting() || status.isGameOver() || status.isGameWon() || !status.isGameStarted()){
+			return;
+		}
+
+		detectCollisions();
+
+		// respond to the collisions, system by system; every system sees the objects where
+		// they collided, the last one moves them away
+		scoreCollisions();
+		playCollisionSounds();
+		explodeCollisions();
+		removeCollidedObjects();
+
+		events.clear();
+		collisions.finish();
+	}
+
+	/**
+	 * Finds the collisions of the tick, pair of layers by pair of layers in the order of the
+	 * collision matrix, and queues them as events. An object destroyed by a collision can't
+	 * collide again in the same tick, and only one bullet hits a target per tick.
+	 */
+	private void detectCollisions(){
+		for(Layer layer : Layer.values()){
+			boolean[] layerDestroyed = destroyed[layer.ordinal()];
+			int size = getLayerSize(layer);
+			if(layerDestroyed.length < size){
+				destroyed[layer.ordinal()] = new boolean[Math.max(size, layerDestroyed.length * 2)];
+			}
+			else{
+				Arrays.fill(layerDestroyed, 0, size, false);
+			}
+		}
+
+		// find the bullets hitting each target, in parallel if there are many; targets of
+		// the same pair get consecutive ids
+		collisions.start(bullets);
+		for(int pair = 0; pair < collisionMatrix.getPairCount(); pair++){
+			Layer first = collisionMatrix.getFirst(pair);
+			Layer second = collisionMatrix.getSecond(pair);
+			if(first.isBullets() || second.isBullets()){
+				Layer bulletLayer = first.isBullets() ? first : second;
+				Layer targetLayer = first.isBullets() ? second : first;
+				pairTargets[pair] = -1;
+				for(int k = 0; k < getLayerSize(targetLayer); k++){
+					int target = collisions.addTarget(getLayerObject(targetLayer, k), getLayerMask(targetLayer),
+							bulletLayer.getBulletOwner(), getLayerMask(bulletLayer));
+					if(k == 0){
+						pairTargets[pair] = target;
+					}
+				}
+			}
+		}
+		collisions.detect();
+
+		for(int pair = 0; pair < collisionMatrix.getPairCount(); pair++){
+			Layer first = collisionMatrix.getFirst(pair);
+			Layer second = collisionMatrix.getSecond(pair);
+			if(first.isBullets() || second.isBullets()){
+				Layer targetLayer = first.isBullets() ? second : first;
+				for(int k = 0; k < getLayerSize(targetLayer); k++){
+					if(isDestroyed(targetLayer, k)){
+						continue;
+					}
+					int bullet = collisions.firstHit(pairTargets[pair] + k);
+					if(bullet >= 0){
+						collisions.remove(bullet);
+						addCollision(first, first.isBullets() ? bullet : k, second, second.isBullets() ? bullet : k);
+					}
+				}
+			}
+			else{
+				for(int i = 0; i < getLayerSize(first); i++){
+					for(int j = 0; j < getLayerSize(second) && !isDestroyed(first, i); j++){
+						if(!isDestroyed(second, j) && collide(getLayerObject(first, i), getLayerMask(first),
+								getLayerObject(second, j), getLayerMask(second))){
+							addCollision(first, i, second, j);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Queues a collision and marks the objects it destroys.
+	 */
+	private void addCollision(Layer a, int aIndex, Layer b, int bIndex){
+		events.add(a, aIndex, b, bIndex);
+		if(destroys(a, b)){
+			destroyed[a.ordinal()][aIndex] = true;
+		}
+		if(destroys(b, a)){
+			destroyed[b.ordinal()][bIndex] = true;
+		}
+	}
+
+	/**
+	 * Indicates if an object of a layer is destroyed when it collides with one of another
+	 * layer. The boss can only be destroyed by bullets, once its health is used up. Bullets
+	 * are not counted; the bullets hit are removed by the collision phase.
+	 */
+	private boolean destroys(Layer layer, Layer by){
+		if(layer.isBullets()){
+			return false;
+		}
+		if(layer == Layer.BOSS){
+			return by == Layer.PLAYER_BULLET && bossShip.getBossHealth() < 1;
+		}
+		return true;
+	}
+
+	/**
+	 * Indicates if an object was destroyed by an earlier collision of the tick.
+	 */
+	private boolean isDestroyed(Layer layer, int index){
+		return destroyed[layer.ordinal()][index];
+	}
+
+	/**
+	 * Returns the number of objects of a layer in play. Bullet layers are not counted.
+	 */
+	private int getLayerSize(Layer layer){
+		switch(layer){
+		case PLAYER:
+			return 1;
+		case ASTEROID:
+			// only the first asteroid is in play until the second level
+			return status.getAsteroidsDestroyed() < 5 ? Math.min(1, asteroids.size()) : asteroids.size();
+		case ENEMY:
+			return status.getAsteroidsDestroyed() >= 15 ? 1 : 0;
+		case BOSS:
+			return status.getAsteroidsDestroyed() >= 50 ? 1 : 0;
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * Returns an object of a layer. Bullet layers have no objects.
+	 */
+	private GameObject getLayerObject(Layer layer, int index){
+		switch(layer){
+		case PLAYER:
+			return ship;
+		case ASTEROID:
+			return asteroids.get(index);
+		case ENEMY:
+			return enemyShip;
+		case BOSS:
+			return bossShip;
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the collision mask of the objects of a layer, or null to use their bounding box.
+	 */
+	private CollisionMask getLayerMask(Layer layer){
+		switch(layer){
+		case PLAYER:
+			return shipMask;
+		case PLAYER_BULLET:
+			return bulletMask;
+		case ENEMY_BULLET:
+		case BOSS_BULLET:
+			return enemyBulletMask;
+		case ASTEROID:
+			return asteroidMask;
+		case ENEMY:
+			return enemyMask;
+		case BOSS:
+			return bossMask;
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Updates the score, the ships left and the asteroids destroyed for the collisions of the tick.
+	 */
+	private void scoreCollisions(){
+		for(int e = 0; e < events.size(); e++){
+			Layer a = events.getLayerA(e);
+			Layer b = events.getLayerB(e);
+			if(a == Layer.PLAYER_BULLET || b == Layer.PLAYER_BULLET){
+				// the player hit something
+				Layer target = a == Layer.PLAYER_BULLET ? b : a;
+				if(target == Layer.ASTEROID){
+					status.setAsteroidsDestroyed(status.getAsteroidsDestroyed() + 1);
+					status.setScore(status.getScore() + 100);
+				}
+				else if(target == Layer.ENEMY){
+					status.setScore(status.getScore() + 500);
+				}
+				else if(target == Layer.BOSS && destroys(Layer.BOSS, Layer.PLAYER_BULLET)){
+					status.setScore(status.getScore() + 1000);
+				}
+			}
+			else{
+				// the player's ship was hit; crashing into an asteroid still destroys it
+				Layer by = a == Layer.PLAYER ? b : a;
+				status.setShipsLeft(status.getShipsLeft() - 1);
+				if(by == Layer.ASTEROID){
+					status.setAsteroidsDestroyed(status.getAsteroidsDestroyed() + 1);
+				}
+				// decrease score to a minimum of zero
+				status.setScore(Math.max(0, status.getScore() - getPenalty(by)));
+			}
+		}
+	}
+
+	/**
+	 * Returns the points lost when the player's ship collides with an object of a layer.
+	 */
+	private int getPenalty(Layer layer){
+		switch(layer){
+		case ASTEROID:
+			return 50;
+		case ENEMY_BULLET:
+			return 75;
+		case ENEMY:
+		case BOSS_BULLET:
+			return 100;
+		case BOSS:
+			return 500;
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * Plays an explosion sound for every object destroyed in the tick.
+	 */
+	private void playCollisionSounds(){
+		for(int e = 0; e < events.size(); e++){
+			Layer a = events.getLayerA(e);
+			Layer b = events.getLayerB(e);
+			if(destroys(a, b)){
+				playExplosionSound(a);
+			}
+			if(destroys(b, a)){
+				playExplosionSound(b);
+			}
+		}
+	}
+
+	private void playExplosionSound(Layer layer){
+		if(layer == Layer.ASTEROID){
+			soundMan.playAsteroidExplosionSound();
+		}
+		else{
+			soundMan.playShipExplosionSound();
+		}
+	}
+
+	/**
+	 * Starts an explosion where every object destroyed in the tick was.
+	 */
+	private void explodeCollisions(){
+		for(int e = 0; e < events.size(); e++){
+			Layer a = events.getLayerA(e);
+			Layer b = events.getLayerB(e);
+			if(destroys(a, b)){
+				explode(a, events.getIndexA(e));
+			}
+			if(destroys(b, a)){
+				explode(b, events.getIndexB(e));
+			}
+		}
+	}
+
+	private void explode(Layer layer, int index){
+		GameObject object = getLayerObject(layer, index);
+		Rectangle explosion = new Rectangle(object.x, object.y, object.width, object.height);
+		switch(layer){
+		case PLAYER:
+			shipExplosion = explosion;
+			break;
+		case ASTEROID:
+			asteroidExplosion = explosion;
+			break;
+		case ENEMY:
+			enemyShipExplosion = explosion;
+			break;
+		case BOSS:
+			bossShipExplosion = explosion;
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Removes the objects destroyed in the tick and schedules their respawn, and damages the
+	 * boss. The bullets hit are removed by the collision phase.
+	 */
+	private void removeCollidedObjects(){
+		for(int e = 0; e < events.size(); e++){
+			Layer a = events.getLayerA(e);
+			Layer b = events.getLayerB(e);
+			// decide before damaging the boss, which changes whether it is destroyed
+			boolean destroyA = destroys(a, b);
+			boolean destroyB = destroys(b, a);
+			if(destroyA){
+				remove(a, events.getIndexA(e));
+			}
+			if(destroyB){
+				remove(b, events.getIndexB(e));
+			}
+			if((a == Layer.BOSS && b == Layer.PLAYER_BULLET && !destroyA)
+					|| (b == Layer.BOSS && a == Layer.PLAYER_BULLET && !destroyB)){
+				bossShip.setBossHealth(bossShip.getBossHealth() - 2);
+			}
+		}
+	}
+
+	private void remove(Layer layer, int index){
+		switch(layer){
+		case PLAYER:
+			ship.jumpTo(playfield.getWidth() + ship.width, -ship.height);
+			status.setNewShip(true);
+			scheduler.scheduleMillis(shipRespawn, NEW_SHIP_DELAY);
+			break;
+		case ASTEROID:
+			Asteroid asteroid = asteroids.get(index);
+			asteroid.jumpTo(-asteroid.width, -asteroid.height);
+			status.setNewAsteroid(true, index);
+			scheduler.scheduleMillis(asteroidRespawns[index], NEW_ASTEROID_DELAY);
+			break;
+		case ENEMY:
+			enemyShip.jumpTo(-enemyShip.width, -enemyShip.height);
+			status.setNewEnemyShip(true);
+			scheduler.scheduleMillis(enemyShipRespawn, NEW_ENEMY_SHIP_DELAY);
+			break;
+		case BOSS:
+			bossShip.jumpTo(-bossShip.width, -bossShip.height);
+			bossDestroyed = true;
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Indicates if two objects collided during the current tick: first their bounding
+	 * boxes, then, if both have one, their masks.
+	 */
+	private boolean collide(GameObject a, CollisionMask aMask, GameObject b, CollisionMask bMask){
+		if(!a.sweepIntersects(b)){
+			return false;
+		}
+		return aMask == null || bMask == null || CollisionMask.sweepOverlaps(
+				aMask, a.getPreviousX(), a.getPreviousY(), a.x, a.y,
+				bMask, b.getPreviousX(), b.getPreviousY(), b.x, b.y);
+	}
+
+	/**
+	 * Indicates if the given point is inside the playfield.
+	 */
+	private boolean isOnScreen(int x, int y){
+		return x >= 0 && x < playfield.getWidth() && y >= 0 && y < playfield.getHeight();
+	}
+
+	/**
+	 * Starts a new simulation tick: advances the game clock and remembers the
+	 * current location of every game object, before the tick moves them.
+	 */
+	public void startTick(){
+		clock.tick();
+		scheduler.advance();
+
+		if(ship != null){
+			ship.savePosition();
+		}
+		if(enemyShip != null){
+			enemyShip.savePosition();
+		}
+		if(bossShip != null){
+			bossShip.savePosition();
+		}
+		for(int i=0; i<asteroids.size(); i++){
+			asteroids.get(i).savePosition();
+		}
+		bullets.savePositions();
 	}
 	
+	/**
+	 * Ends the current simulation tick: plays the sounds asked for during it.
+	 */
+	public void endTick(){
+		soundMan.playRequestedSounds();
+	}
+
+	/**
+	 * Copies everything that has to be drawn for the current tick into a snapshot.
+	 * @param snapshot the snapshot to fill
+	 * @param tickTime the time at which the current tick was due, as given by {@link System#nanoTime()}
+	 */
+	public void writeSnapshot(WorldSnapshot snapshot, long tickTime){
+		snapshot.clear();
+		snapshot.tickTime = tickTime;
+
+		snapshot.gameStarting = status.isGameStarting();
+		snapshot.gameStarted = status.isGameStarted();
+		snapshot.gameOver = status.isGameOver();
+		snapshot.gameWon = status.isGameWon();
+		snapshot.asteroidsDestroyed = status.getAsteroidsDestroyed();
+		snapshot.shipsLeft = status.getShipsLeft();
+		snapshot.score = status.getScore();
+		snapshot.level = status.getLevel();
+
+		if(snapshot.gameOver){
+			// keep the last explosions until their objects would have respawned
+			if(isAsteroidRespawning() && asteroidExplosion != null){
+				snapshot.asteroidExplosions.add(asteroidExplosion);
+			}
+			if(shipRespawn.isScheduled() && shipExplosion != null){
+				snapshot.shipExplosions.add(shipExplosion);
+			}
+			return;
+		}
+		if(snapshot.gameStarting || snapshot.gameWon || !snapshot.gameStarted){
+			// only a message is displayed
+			return;
+		}
+
+		for(int i=0; i<bullets.size(); i++){
+			WorldSnapshot.Positions positions;
+			switch(bullets.getOwner(i)){
+			case BulletPool.ENEMY:
+				positions = snapshot.enemyBullets;
+				break;
+			case BulletPool.BOSS:
+				positions = snapshot.bossBullets;
+				break;
+			default:
+				positions = snapshot.bullets;
+				break;
+			}
+			positions.add(bullets.getPreviousX(i), bullets.getPreviousY(i), bullets.getX(i), bullets.getY(i));
+		}
+
+		// only the first asteroid is in play until 5 have been destroyed
+		int activeAsteroids = status.getAsteroidsDestroyed() < 5 ? 1 : maxAsteroids;
+		for(int i=0; i<activeAsteroids; i++){
+			if(!status.isNewAsteroid()[i]){
+				snapshot.asteroids.add(asteroids.get(i));
+			}
+			else if(asteroidExplosion != null){
+				snapshot.asteroidExplosions.add(asteroidExplosion);
+			}
+		}
+
+		if(status.getAsteroidsDestroyed() >= 15){
+			if(!status.isNewEnemyShip()){
+				snapshot.enemyShips.add(enemyShip);
+			}
+			else if(enemyShipExplosion != null){
+				snapshot.shipExplosions.add(enemyShipExplosion);
+			}
+		}
+
+		if(status.getAsteroidsDestroyed() >= 50){
+			if(!bossDestroyed){
+				snapshot.bossShips.add(bossShip);
+				snapshot.bossWidth = bossShip.getBossWidth();
+				snapshot.bossHealth = bossShip.getBossHealth();
+				snapshot.bossDefaultHealth = bossShip.getDefaultHealth();
+			}
+			else if(bossShipExplosion != null){
+				snapshot.bossExplosions.add(bossShipExplosion);
+			}
+		}
+
+		if(!status.isNewShip()){
+			snapshot.ships.add(ship);
+		}
+		else if(shipExplosion != null){
+			snapshot.shipExplosions.add(shipExplosion);
+		}
+	}
+
 	/**
 	 * Fire a bullet from ship.
 	 */
 	public void fireBullet(){
-		Bullet bullet = new Bullet(ship);
-		bullets.add(bullet);
+		bullets.add(ship.x + ship.width/2 - BulletPool.WIDTH/2, ship.y - BulletPool.HEIGHT,
+				0, -BulletPool.SPEED, BulletPool.SHIP);
 		soundMan.playBulletSound();
 	}
 	
@@ -195,8 +1167,8 @@ public class GameLogic {
 	 * Fire a bullet from the enemy ship.
 	 */
 	public void fireEnemyBullet(){
-		Bullet bullet = new Bullet(enemyShip);
-		enemyBullets.add(bullet);
+		bullets.add(enemyShip.x + enemyShip.width/2 - BulletPool.WIDTH/2, enemyShip.y + BulletPool.HEIGHT,
+				0, BulletPool.SPEED, BulletPool.ENEMY);
 		soundMan.playBulletSound();
 	}
 	
@@ -204,34 +1176,22 @@ public class GameLogic {
 	 * Fire a bullet from the boss ship.
 	 */
 	public void fireBossBullet(){
-		Bullet bullet = new Bullet(bossShip);
-		bossBullets.add(bullet);
+		bullets.add(bossShip.x + bossShip.width/2 - BulletPool.WIDTH/2, bossShip.y + BulletPool.HEIGHT,
+				0, BulletPool.SPEED, BulletPool.BOSS);
 		soundMan.playBulletSound();
 	}
 	
 	/**
-	 * Move a bullet once fired.
-	 * @param bullet the bullet to move
+	 * Move a bullet once fired: the ship's bullets up, the enemies' bullets down.
+	 * @param i the index of the bullet to move
 	 * @return if the bullet should be removed from screen
 	 */
-	public boolean moveBullet(Bullet bullet){
-		if(bullet.getY() - bullet.getSpeed() >= 0){
-			bullet.translate(0, -bullet.getSpeed());
-			return false;
-		}
-		else{
-			return true;
-		}
-	}
-	
-	/**
-	 * Move an enemy bullet once fired.
-	 * @param bullet the bullet to move
-	 * @return if the bullet should be removed from the screen
-	 */
-	public boolean moveEnemyBullet(Bullet bullet){
-		if(bullet.getY() - bullet.getSpeed() <= gameScreen.getHeight()){
-			bullet.translate(0, bullet.getSpeed());
+	public boolean moveBullet(int i){
+		int y = bullets.getY(i);
+		int vy = bullets.getVy(i);
+		boolean onScreen = vy < 0 ? y + vy >= 0 : y - vy <= playfield.getHeight();
+		if(onScreen){
+			bullets.move(i);
 			return false;
 		}
 		else{
@@ -242,32 +1202,32 @@ public class GameLogic {
 	/**
 	 * Create a new ship (and replace current one).
 	 */
-	public Ship newShip(GameScreen screen){
-		this.ship = new Ship(screen);
+	public Ship newShip(Playfield playfield){
+		this.ship = new Ship(playfield);
 		return ship;
 	}
 	
 	/**
 	 * Creates a new enemy ship (and replace current one).
 	 */
-	public EnemyShip newEnemyShip(GameScreen screen) {
-		this.enemyShip = new EnemyShip(screen);
+	public EnemyShip newEnemyShip(Playfield playfield) {
+		this.enemyShip = new EnemyShip(playfield, random.getStream(GameRandom.Stream.ENEMY_SHIPS));
 		return enemyShip;
 	}
 	
 	/**
 	 * Creates a new boss ship.
 	 */
-	public BossShip newBossShip(GameScreen screen) {
-		this.bossShip = new BossShip(screen);
+	public BossShip newBossShip(Playfield playfield) {
+		this.bossShip = new BossShip(playfield);
 		return bossShip;
 	}
 	
 	/**
 	 * Create a new asteroid.
 	 */
-	public void newAsteroid(GameScreen screen, int i){
-		this.asteroids.add(i, new Asteroid(screen));
+	public void newAsteroid(Playfield playfield, int i){
+		this.asteroids.add(i, new Asteroid(playfield, rand));
 		//return asteroids.get(i);
 	}
 	
@@ -304,28 +1264,64 @@ public class GameLogic {
 	}
 
 	/**
-	 * Returns the list of bullets.
-	 * @return the list of bullets
+	 * Returns the bullets of the ship and its enemies.
+	 * @return the bullet pool
 	 */
-	public List<Bullet> getBullets() {
+	public BulletPool getBullets() {
 		return bullets;
 	}
-	
+
 	/**
-	 * Returns the list of enemy bullets.
-	 * @return the list of enemy bullets
+	 * Chooses the next location to draw asteroid based on its determined trajectory.
 	 */
-	public List<Bullet> getEnemyBullets() {
-		return enemyBullets;
+	public void chooseNextLocation(int k) {
+
+		switch (asteroids.get(k).getTrajectory() % 2) {
+
+		case 0:
+			// vertical trajectory, so it can be drawn anywhere on screen
+			asteroids.get(k).jumpTo(playfield.getWidth() / 2 - 100 + rand.nextInt(playfield.getWidth() / 2),0); 
+			break;
+		case 1:
+			// Trajectory is towards right, so draw it on the left side of the screen
+			asteroids.get(k).jumpTo(rand.nextInt(playfield.getWidth() / 3),0);
+			break;
+		case 2:
+			// Trajectory is towards left, so draw it on the right side of the screen
+			asteroids.get(k).jumpTo(playfield.getWidth() - rand.nextInt(playfield.getWidth() / 3),0);
+			break;
+		}
+
 	}
-	
+
 	/**
-	 * Returns the list of boss bullets.
-	 * @return the list of boss bullets
+	 * Indicates if any destroyed asteroid is waiting to be respawned.
 	 */
-	public List<Bullet> getBossBullets() {
-		return bossBullets;
+	private boolean isAsteroidRespawning() {
+		for (int i = 0; i < asteroidRespawns.length; i++) {
+			if(asteroidRespawns[i].isScheduled()){
+				return true;
+			}
+		}
+		return false;
 	}
 
+	/**
+	 * Draws a destroyed asteroid again at the top of the screen, with a new trajectory.
+	 */
+	private class AsteroidRespawn extends TickScheduler.Task {
+		private final int index;
+
+		AsteroidRespawn(int index) {
+			this.index = index;
+		}
+
+		public void run() {
+			Asteroid asteroid = asteroids.get(index);
+			asteroid.setTrajectory(rand.nextInt(5));
+			status.setNewAsteroid(false, index);
+			asteroid.jumpTo(rand.nextInt(playfield.getWidth() - asteroid.width), 0);
+		}
+	}
 
 }
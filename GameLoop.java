@@ -1,51 +1,168 @@
 package rbadia.voidspace.main;
 
 /**
- * Implements the main game loop, i.e. what actions should be taken on each frame update.
+ * Implements the main game loop, i.e. what actions should be taken on each simulation tick.
+ * <p>
+ * The game is simulated in fixed steps (ticks) of exactly 1/tickRate seconds, measured with
+ * {@link System#nanoTime()}, no matter how long each step took to compute. After each batch
+ * of ticks the loop publishes a {@link WorldSnapshot} for the render thread (see
+ * {@link RenderLoop}), so simulating and drawing never wait for each other.
  */
 public class GameLoop implements Runnable{
-	private GameScreen gameScreen;
+	/** Default number of simulation ticks per second. */
+	public static final int DEFAULT_TICK_RATE = 60;
+	/** Default maximum number of ticks simulated in a row to catch up. */
+	public static final int DEFAULT_MAX_CATCH_UP_TICKS = 5;
+
+	private static final long NANOS_PER_SECOND = 1000000000L;
+
 	private GameLogic gameLogic;
 	private InputHandler inputHandler;
+	private TripleBuffer<WorldSnapshot> snapshots;
+
+	private final long tickNanos;
+	private final int maxCatchUpTicks;
+
+	private FrameStats frameStats = new FrameStats();
+	private volatile long droppedTicks;
+
+	/**
+	 * Creates a new game loop with the default tick rate.
+	 * @param gameLogic the game logic handler
+	 * @param inputHandler the user input handler
+	 * @param snapshots where to publish the snapshots for the render thread
+	 */
+	public GameLoop(GameLogic gameLogic, InputHandler inputHandler, TripleBuffer<WorldSnapshot> snapshots){
+		this(gameLogic, inputHandler, snapshots, DEFAULT_TICK_RATE, DEFAULT_MAX_CATCH_UP_TICKS);
+	}
 
 	/**
 	 * Creates a new game loop.
-	 * @param gameScreen the game screen
 	 * @param gameLogic the game logic handler
 	 * @param inputHandler the user input handler
+	 * @param snapshots where to publish the snapshots for the render thread
+	 * @param tickRate the number of simulation ticks per second
+	 * @param maxCatchUpTicks the maximum number of ticks simulated in a row; if the loop
+	 * falls further behind, the extra time is dropped instead of simulated
 	 */
-	public GameLoop(GameScreen gameScreen, GameLogic gameLogic, InputHandler inputHandler){
-		this.gameScreen = gameScreen;
+	public GameLoop(GameLogic gameLogic, InputHandler inputHandler, TripleBuffer<WorldSnapshot> snapshots,
+			int tickRate, int maxCatchUpTicks){
+		if(tickRate < 1 || maxCatchUpTicks < 1){
+			throw new IllegalArgumentException("Invalid game loop rates: tickRate=" + tickRate
+					+ ", maxCatchUpTicks=" + maxCatchUpTicks);
+		}
 		this.gameLogic = gameLogic;
 		this.inputHandler = inputHandler;
+		this.snapshots = snapshots;
+		this.tickNanos = NANOS_PER_SECOND / tickRate;
+		this.maxCatchUpTicks = maxCatchUpTicks;
+	}
+
+	/**
+	 * Returns the length of a simulation tick.
+	 * @return the length of a tick in nanoseconds
+	 */
+	public long getTickNanos() {
+		return tickNanos;
+	}
+
+	/**
+	 * Returns the number of ticks dropped so far because the simulation fell too far behind.
+	 * Each dropped tick slows the game down, so any dropped ticks mean the machine is too
+	 * slow for the game's tick rate.
+	 * @return the number of dropped ticks
+	 */
+	public long getDroppedTicks() {
+		return droppedTicks;
+	}
+
+	/**
+	 * Returns the timings of the simulation phases.
+	 * @return the frame stats
+	 */
+	public FrameStats getFrameStats() {
+		return frameStats;
+	}
+
+	/**
+	 * Sets where to record the timings of the simulation phases.
+	 * Must be called before the loop starts running.
+	 * @param frameStats the frame stats
+	 */
+	public void setFrameStats(FrameStats frameStats) {
+		this.frameStats = frameStats;
 	}
 
 	/**
 	 * Implements the run interface method. Should be called by the running thread.
 	 */
 	public void run() {
+		long previousTime = System.nanoTime();
+		long accumulator = 0;
 		while(true){
 			// main game loop
-			try{
-				// sleep/wait for 1/60th of a second,
-				// for a resulting refresh rate of 60 frames per second (fps) 
-				Thread.sleep(1000/60);
+			long currentTime = System.nanoTime();
+			accumulator += currentTime - previousTime;
+			previousTime = currentTime;
+
+			// simulate all the ticks that are due, up to the catch-up limit
+			int ticks = 0;
+			while(accumulator >= tickNanos && ticks < maxCatchUpTicks){
+				tick();
+				accumulator -= tickNanos;
+				ticks++;
+			}
+			if(accumulator >= tickNanos){
+				// too far behind, drop the backlog instead of spiraling
+				droppedTicks += accumulator / tickNanos;
+				accumulator %= tickNanos;
+			}
+
+			if(ticks > 0){
+				// hand the result of the last tick to the render thread
+				long snapshotStart = System.nanoTime();
+				gameLogic.writeSnapshot(snapshots.getBack(), currentTime - accumulator);
+				snapshots.publish();
+				frameStats.record(FrameStats.Phase.SNAPSHOT, snapshotStart);
 			}
-			catch(Exception e){
-				e.printStackTrace();
+
+			// sleep until the next tick is due
+			long remaining = tickNanos - accumulator - (System.nanoTime() - currentTime);
+			if(remaining > 0){
+				try{
+					Thread.sleep(remaining / 1000000, (int) (remaining % 1000000));
+				}
+				catch(InterruptedException e){
+					e.printStackTrace();
+				}
 			}
-			// check game or level ending conditions
-			gameLogic.checkConditions();
-			
-			// update the game graphics
-			gameScreen.updateScreen();
-			
-			// handle input
-			inputHandler.handleInput(gameScreen);
-			
-			// repaint the graphics unto screen
-			gameScreen.repaint();
 		}
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Advances the game by one simulation tick.
+	 */
+	private void tick(){
+		gameLogic.startTick();
+		long phaseStart = System.nanoTime();
+
+		// check game or level ending conditions
+		gameLogic.checkConditions();
+		phaseStart = frameStats.record(FrameStats.Phase.CONDITIONS, phaseStart);
+
+		// update the game objects
+		gameLogic.moveObjects();
+		phaseStart = frameStats.record(FrameStats.Phase.MOVE, phaseStart);
+
+		// handle input before the collisions, so the ship's move is swept like the others
+		inputHandler.handleInput(gameLogic.getPlayfield());
+		phaseStart = frameStats.record(FrameStats.Phase.INPUT, phaseStart);
+
+		gameLogic.checkCollisions();
+		frameStats.record(FrameStats.Phase.COLLIDE, phaseStart);
+
+		// play the sounds of the tick
+		gameLogic.endTick();
+	}
+
+}
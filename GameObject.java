@@ -0,0 +1,111 @@
+package rbadia.voidspace.model;
+
+import java.awt.Rectangle;
+
+/**
+ * Base class for the objects that move on the game screen. Remembers the location
+ * the object had at the start of the current simulation tick, so that frames drawn
+ * in between ticks can place the object somewhere along its path (see
+ * {@link rbadia.voidspace.main.WorldSnapshot}), and so that collisions are checked
+ * along the whole path the object moved during the tick, not only where it ended up.
+ */
+public abstract class GameObject extends Rectangle {
+	private static final long serialVersionUID = 1L;
+
+	private int previousX;
+	private int previousY;
+
+	/**
+	 * Remembers the current location as the location of the previous tick.
+	 * Should be called once at the start of every simulation tick.
+	 */
+	public void savePosition() {
+		previousX = x;
+		previousY = y;
+	}
+
+	/**
+	 * Moves the object to a new location without passing through the space in between:
+	 * it is neither drawn nor hit anywhere along the way. Use instead of
+	 * {@link #setLocation(int, int)} to respawn, wrap around or hide an object.
+	 * @param x the new x coordinate
+	 * @param y the new y coordinate
+	 */
+	public void jumpTo(int x, int y) {
+		setLocation(x, y);
+		savePosition();
+	}
+
+	/**
+	 * Indicates if this object and another one touched at any time during the current
+	 * tick, while both moved in a straight line from their previous location to their
+	 * current one. Unlike {@link #intersects(Rectangle)}, fast objects can't pass
+	 * through each other in between two ticks.
+	 * @param other the other object
+	 * @return true if the objects touched
+	 */
+	public boolean sweepIntersects(GameObject other) {
+		return sweepIntersects(previousX, previousY, x, y, width, height,
+				other.previousX, other.previousY, other.x, other.y, other.width, other.height);
+	}
+
+	/**
+	 * Swept test of two moving boxes, done in the frame of the second box: the first
+	 * one moves by the difference of their motions, and they touch if that segment
+	 * enters the second box grown by the size of the first one. Like
+	 * {@link Rectangle#intersects(Rectangle)}, boxes that only share an edge don't touch.
+	 */
+	static boolean sweepIntersects(int ax0, int ay0, int ax1, int ay1, int aWidth, int aHeight,
+			int bx0, int by0, int bx1, int by1, int bWidth, int bHeight) {
+		if(aWidth <= 0 || aHeight <= 0 || bWidth <= 0 || bHeight <= 0){
+			return false;
+		}
+		// the first box is at p + d * t from the second one, for t from 0 to 1, and they
+		// touch where -aSize < p + d * t < bSize on both axes
+		double enter = 0;
+		double exit = 1;
+		int px = ax0 - bx0;
+		int dx = (ax1 - ax0) - (bx1 - bx0);
+		if(dx == 0){
+			if(px <= -aWidth || px >= bWidth){
+				return false;
+			}
+		}
+		else{
+			double t0 = (double) (-aWidth - px) / dx;
+			double t1 = (double) (bWidth - px) / dx;
+			enter = Math.max(enter, Math.min(t0, t1));
+			exit = Math.min(exit, Math.max(t0, t1));
+		}
+		int py = ay0 - by0;
+		int dy = (ay1 - ay0) - (by1 - by0);
+		if(dy == 0){
+			if(py <= -aHeight || py >= bHeight){
+				return false;
+			}
+		}
+		else{
+			double t0 = (double) (-aHeight - py) / dy;
+			double t1 = (double) (bHeight - py) / dy;
+			enter = Math.max(enter, Math.min(t0, t1));
+			exit = Math.min(exit, Math.max(t0, t1));
+		}
+		return enter < exit;
+	}
+
+	/**
+	 * Returns the x coordinate the object had at the start of the current tick.
+	 * @return the previous x coordinate
+	 */
+	public int getPreviousX() {
+		return previousX;
+	}
+
+	/**
+	 * Returns the y coordinate the object had at the start of the current tick.
+	 * @return the previous y coordinate
+	 */
+	public int getPreviousY() {
+		return previousY;
+	}
+}
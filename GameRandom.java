@@ -0,0 +1,56 @@
+package rbadia.voidspace.main;
+
+import java.util.SplittableRandom;
+
+/**
+ * The game's single source of randomness. Each subsystem draws from its own stream,
+ * split off a root generator in a fixed order, so the same seed always produces the
+ * same streams, and drawing more numbers in one subsystem (e.g. more stars on
+ * screen) never changes what another one (e.g. the asteroids) gets.
+ */
+public class GameRandom {
+
+	/**
+	 * The parts of the game that draw random numbers.
+	 */
+	public enum Stream {
+		/** Asteroid locations and trajectories. */
+		ASTEROIDS,
+		/** Enemy ship locations. */
+		ENEMY_SHIPS,
+		/** Background stars, only used for drawing. */
+		STARS
+	}
+
+	private final long seed;
+	private final SplittableRandom[] streams = new SplittableRandom[Stream.values().length];
+
+	/**
+	 * Creates the random streams for a seed.
+	 * @param seed the seed
+	 */
+	public GameRandom(long seed) {
+		this.seed = seed;
+		SplittableRandom root = new SplittableRandom(seed);
+		for(Stream stream : Stream.values()){
+			streams[stream.ordinal()] = root.split();
+		}
+	}
+
+	/**
+	 * Returns the seed the streams were created from.
+	 * @return the seed
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Returns the random stream of a subsystem. A stream must only be used by one thread.
+	 * @param stream the subsystem
+	 * @return the subsystem's random stream
+	 */
+	public SplittableRandom getStream(Stream stream) {
+		return streams[stream.ordinal()];
+	}
+}
@@ -1,82 +1,110 @@
 package rbadia.voidspace.main;
+import java.awt.AWTException;
+import java.awt.BorderLayout;
+import java.awt.BufferCapabilities;
+import java.awt.Canvas;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
-import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.ImageCapabilities;
 import java.awt.Rectangle;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 
-import javax.swing.JLabel;
 import javax.swing.JPanel;
 
+import rbadia.voidspace.graphics.DirtyRegions;
 import rbadia.voidspace.graphics.GraphicsManager;
-import rbadia.voidspace.model.Asteroid;
-import rbadia.voidspace.model.Bullet;
-import rbadia.voidspace.model.EnemyShip;
-import rbadia.voidspace.model.Ship;
-import rbadia.voidspace.model.BossShip;
-import rbadia.voidspace.sounds.SoundManager;
+import rbadia.voidspace.graphics.Hud;
+import rbadia.voidspace.graphics.Starfield;
+import rbadia.voidspace.graphics.TextImage;
+import rbadia.voidspace.model.Playfield;
 
 /**
- * Main game screen. Handles all game graphics updates and some of the game logic.
+ * Main game screen. Draws the game graphics from the snapshots published by the
+ * simulation thread.
+ * <p>
+ * Frames are drawn by the render thread (see {@link RenderLoop}) into one of three
+ * back buffer images and handed to the event dispatch thread, which paints the
+ * latest complete one, so a frame is never painted while it is being drawn.
+ * <p>
+ * With active rendering (see {@link #setActiveRendering(boolean)}) the frames are
+ * instead drawn straight into the back buffer of a {@link Canvas}'s
+ * {@link BufferStrategy} and flipped onto the screen by the render thread, with no
+ * extra copy and no wait for the event dispatch thread.
+ * <p>
+ * With dirty rendering (see {@link #setDirtyRendering(boolean)}) the stars stand still, and
+ * while a game is being played only the regions the objects were drawn on are erased, drawn
+ * and repainted: each back buffer is erased where its own last frame drew, and the screen is
+ * repainted where the last frame and the new one drew. When the regions cover more of the
+ * screen than the full redraw threshold, the whole frame is drawn and repainted instead.
+ * The contents of active rendering buffers are lost with every flip, so active rendering
+ * always draws whole frames.
  */
-public class GameScreen extends JPanel {
+public class GameScreen extends JPanel implements Playfield {
 	private static final long serialVersionUID = 1L;
 
-	private BufferedImage backBuffer;
-	private Graphics2D g2d;
-
-	private static final int NEW_SHIP_DELAY = 500;
-	private static final int NEW_ASTEROID_DELAY = 500;
-	private static final int NEW_ENEMY_SHIP_DELAY = 2000;
+	// number of buffers of the active rendering buffer strategy, the front one included
+	private static final int ACTIVE_BUFFERS = 2;
 
-	private long lastShipTime;
-	private long lastEnemyShipTime;
-	private long lastAsteroidTime;
+	/** Default fraction of the screen past which dirty rendering draws the whole frame. */
+	public static final float DEFAULT_FULL_REDRAW_THRESHOLD = 0.4f;
 
-	private Rectangle asteroidExplosion;
-	private Rectangle shipExplosion;
-	private Rectangle enemyShipExplosion;
-	private Rectangle bossShipExplosion;
-	private Rectangle backdropShip;
+	// how fast the banners grow, and the number of sizes they are drawn at
+	private static final float BANNER_GROWTH_POINTS_PER_SECOND = 60;
+	private static final int BANNER_SIZES = 12;
 
-	private JLabel shipsValueLabel;
-	private JLabel destroyedValueLabel;
-	private JLabel pointsValueLabel;
-	private JLabel levelValueLabel;
+	// font of the status line, and color of its values when a game is lost
+	private static final Font HUD_FONT = new Font(Font.DIALOG, Font.BOLD, 12);
+	private static final Color HUD_DIMMED = new Color(128, 0, 0);
 
-	private Random rand;
+	private final TripleBuffer<FrameBuffer> frameBuffers;
+	private Graphics2D g2d;
 
-	private Font originalFont;
-	private Font bigFont;
-	private Font biggestFont;
+	// active rendering canvas, or null when frames are painted by the event dispatch thread
+	private Canvas canvas;
+	private BufferStrategy bufferStrategy;
 
-	private GameStatus status;
-	private SoundManager soundMan;
-	private GraphicsManager graphicsMan;
-	private GameLogic gameLogic;
+	// dirty rendering, and the regions drawn on by the last frame and to repaint for the new one
+	private boolean dirtyRendering;
+	private float fullRedrawThreshold = DEFAULT_FULL_REDRAW_THRESHOLD;
+	private final DirtyRegions lastDrawn = new DirtyRegions(800, 600);
+	private boolean lastDrawnTracked;
+	private final DirtyRegions repaintRegions = new DirtyRegions(800, 600);
+	private boolean repaintAll = true;
 
-	//	private int trajectory;
-	private ArrayList<Asteroid> asteroids;
+	private Rectangle backdropShip;
 
-	// default values for the equation of a circle
-	private boolean doOnce = true;
-	private int h;
-	private int k;	
-	private int radius;  
-	private int xCoord;				
-	private int yCoord;
+	private Hud hud;
 
-	boolean circleBottom = true;
-	boolean bossDestroyed = false;
+	private Font originalFont;
 
-	// default value for the direction of the enemy ship
-	private int direction = 1;
+	// banner texts, laid out for the width of the screen, and the growing one being drawn
+	private int textWidth;
+	private TextImage getReadyText;
+	private TextImage newGameText;
+	private TextImage exitGameText;
+	private TextImage[] titleSizes;
+	private TextImage[] gameOverSizes;
+	private TextImage[] gameWonSizes;
+	private TextImage[] growingText;
+	private long growingStart;
+
+	// null until the game images are loaded
+	private volatile GraphicsManager graphicsMan;
+	private AssetLoader assetLoader;
+	private TextImage loadingText;
+	private SplittableRandom starsRand = new SplittableRandom();
+	private Starfield starfield;
+
+	// game flags of the last snapshot drawn, to catch the start and end of a game
+	private boolean lastGameStarting;
+	private boolean lastGameOver;
+	private boolean lastGameWon;
 
 	/**
 	 * This method initializes 
@@ -84,17 +112,14 @@ public class GameScreen extends JPanel {
 	 */
 	public GameScreen() {
 		super();
-		// initialize random number generator
-		rand = new Random();
 
 		initialize(); 
 
-		// init graphics manager
-		graphicsMan = new GraphicsManager();
+		// init status line
+		hud = new Hud(HUD_FONT);
 
-		// init back buffer image
-		backBuffer = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
-		g2d = backBuffer.createGraphics();
+		// init back buffer images
+		frameBuffers = new TripleBuffer<FrameBuffer>(new FrameBuffer(), new FrameBuffer(), new FrameBuffer());
 	}
 
 	/**
@@ -113,71 +138,196 @@ public class GameScreen extends JPanel {
 	@Override
 	protected void paintComponent(Graphics g) {
 		super.paintComponent(g);
-		// draw current backbuffer to the actual game screen
-		g.drawImage(backBuffer, 0, 0, this);
+		// draw the latest complete backbuffer to the actual game screen
+		g.drawImage(frameBuffers.acquire().image, 0, 0, this);
 	}
 
 	/**
-	 * Update the game screen's backbuffer image.
+	 * Draw a frame into the next backbuffer image and make it the one painted on screen.
+	 * Objects are drawn in between the location they had on the tick before the snapshot
+	 * and the one they have in the snapshot. Should only be called by the render thread.
+	 * @param snapshot the latest snapshot published by the simulation
+	 * @param alpha fraction of a tick elapsed since the snapshot's tick, between 0 and 1
 	 */
-	public void updateScreen(){
-		Ship ship = gameLogic.getShip();
-		EnemyShip enemy = gameLogic.getEnemyShip();
-		BossShip boss = gameLogic.getBossShip();
-		asteroids = gameLogic.getAsteroids();
-		List<Bullet> bullets = gameLogic.getBullets();
-		List<Bullet> enemyBullets = gameLogic.getEnemyBullets();
-		List<Bullet> bossBullets = gameLogic.getBossBullets();
+	public void renderScreen(WorldSnapshot snapshot, float alpha){
+		if(snapshot.gameStarting && !lastGameStarting){
+			doNewGame(snapshot);
+		}
+		if(snapshot.gameOver && !lastGameOver){
+			doGameOver(snapshot);
+		}
+		if(snapshot.gameWon && !lastGameWon){
+			doGameWon(snapshot);
+		}
+		lastGameStarting = snapshot.gameStarting;
+		lastGameOver = snapshot.gameOver;
+		lastGameWon = snapshot.gameWon;
+
+		if(snapshot.gameStarted && !snapshot.gameOver && !snapshot.gameWon){
+			updateHud(snapshot);
+		}
 
-		long currentTime2 = System.currentTimeMillis();
+		if(canvas != null){
+			drawActiveFrame(snapshot, alpha);
+		}
+		else{
+			FrameBuffer buffer = frameBuffers.getBack();
+			g2d = buffer.g2d;
+			if(dirtyRendering && isPlaying(snapshot)){
+				drawDirtyFrame(buffer, snapshot, alpha);
+			}
+			else{
+				drawFrame(snapshot, alpha);
+				buffer.tracked = false;
+				lastDrawnTracked = false;
+				repaintAll = true;
+			}
+			frameBuffers.publish();
+		}
+	}
+
+	/**
+	 * Shows the last frame drawn by {@link #renderScreen(WorldSnapshot, float)} on screen:
+	 * flips the buffer strategy with active rendering, or asks the event dispatch thread
+	 * to paint it otherwise. Should only be called by the render thread.
+	 */
+	public void presentScreen(){
+		if(canvas == null){
+			if(repaintAll){
+				repaint();
+				return;
+			}
+			for(int i = 0; i < repaintRegions.size(); i++){
+				repaint(repaintRegions.getX(i), repaintRegions.getY(i),
+						repaintRegions.getWidth(i), repaintRegions.getHeight(i));
+			}
+			return;
+		}
+		// a frame whose buffer was lost is dropped, the next one is drawn from scratch anyway
+		if(bufferStrategy != null && !bufferStrategy.contentsLost()){
+			bufferStrategy.show();
+			Toolkit.getDefaultToolkit().sync();
+		}
+	}
+
+	/**
+	 * Draws a frame into the back buffer of the active rendering buffer strategy,
+	 * drawing it again if the buffer's contents are lost and restored meanwhile.
+	 */
+	private void drawActiveFrame(WorldSnapshot snapshot, float alpha){
+		BufferStrategy strategy = getActiveBufferStrategy();
+		if(strategy == null){
+			// not on screen yet
+			return;
+		}
+		do{
+			Graphics2D graphics = (Graphics2D) strategy.getDrawGraphics();
+			try{
+				g2d = graphics;
+				drawFrame(snapshot, alpha);
+			}
+			finally{
+				graphics.dispose();
+			}
+		} while(strategy.contentsRestored());
+	}
 
+	/**
+	 * Returns the buffer strategy of the active rendering canvas, creating it the first
+	 * time the canvas is on screen. Page flipping with accelerated (volatile image) buffers
+	 * is used if the graphics device supports it, blitting otherwise.
+	 * @return the buffer strategy, or null if the canvas is not on screen yet
+	 */
+	private BufferStrategy getActiveBufferStrategy(){
+		if(bufferStrategy == null && canvas != null && canvas.isDisplayable()){
+			try{
+				canvas.createBufferStrategy(ACTIVE_BUFFERS, new BufferCapabilities(
+						new ImageCapabilities(true), new ImageCapabilities(true),
+						BufferCapabilities.FlipContents.UNDEFINED));
+			}
+			catch(AWTException e){
+				// no page flipping, let AWT pick the best strategy available
+				canvas.createBufferStrategy(ACTIVE_BUFFERS);
+			}
+			bufferStrategy = canvas.getBufferStrategy();
+		}
+		return bufferStrategy;
+	}
 
+	/**
+	 * Draws all the game graphics of a snapshot.
+	 */
+	private void drawFrame(WorldSnapshot snapshot, float alpha){
 		// set original font - for later use
 		if(this.originalFont == null){
 			this.originalFont = g2d.getFont();
-			this.bigFont = originalFont;
+		}
+		if(textWidth != getWidth()){
+			layOutTexts();
 		}
 
-		// erase screen
-		g2d.setPaint(new Color(0x0000));
-		g2d.fillRect(0, 0, getSize().width, getSize().height);
+		// erase screen with the starfield
+		getStarfield().draw(g2d, getStarTime());
 
-		// draw 50 random stars
-		drawStars(50);
+		if(graphicsMan == null){
+			drawLoading();
+		}
+		else{
+			drawScene(snapshot, alpha);
+		}
+
+		// draw the status line over everything
+		hud.draw(g2d, getWidth());
+	}
+
+	/**
+	 * Draws the "Loading" message and how many of the game's assets are loaded.
+	 */
+	private void drawLoading(){
+		drawCentered(loadingText);
+		if(assetLoader != null && assetLoader.getAssetCount() > 0){
+			int barWidth = this.getWidth() / 3;
+			int barX = (this.getWidth() - barWidth) / 2;
+			int barY = (this.getHeight() + loadingText.getAscent()) / 2 + 8;
+			g2d.setPaint(Color.DARK_GRAY);
+			g2d.fillRect(barX, barY, barWidth, 4);
+			g2d.setPaint(new Color(0xb666d2));
+			g2d.fillRect(barX, barY, barWidth * assetLoader.getDoneCount() / assetLoader.getAssetCount(), 4);
+		}
+	}
 
+	/**
+	 * Draws the banners or the game objects of a snapshot.
+	 */
+	private void drawScene(WorldSnapshot snapshot, float alpha){
 		// if the game is starting, draw "Get Ready" message
-		if(status.isGameStarting()){
+		if(snapshot.gameStarting){
+			// the banner animations start over with a new game
+			growingText = null;
+
 			drawGetReady();
 			return;
 		}
 
 		// if the game is over, draw the "Game Over" message
-		if(status.isGameOver()){
+		if(snapshot.gameOver){
 			// draw the message
 			drawGameOver();
 
-			long currentTime = System.currentTimeMillis();
 			// draw the explosions until their time passes
-			if((currentTime - lastAsteroidTime) < NEW_ASTEROID_DELAY){
-				graphicsMan.drawAsteroidExplosion(asteroidExplosion, g2d, this);
-			}
-			if((currentTime - lastShipTime) < NEW_SHIP_DELAY){
-				graphicsMan.drawShipExplosion(shipExplosion, g2d, this);
-			}
-
+			drawExplosions(snapshot);
 			return;
 		}
 
 		// if boss is destroyed, draw the "Game Won" message
-		if(status.isGameWon()){
+		if(snapshot.gameWon){
 			// draw the message
 			drawYouWon();
 			return;
 		}
 
-
 		// the game has not started yet
-		if(!status.isGameStarted()){
+		if(!snapshot.gameStarted){
 
 			// draw backdrop ship
 			backdropShip = new Rectangle(
@@ -194,982 +344,400 @@ public class GameScreen extends JPanel {
 			return;
 		}
 
-		// draw bullets
-		for(int i=0; i<bullets.size(); i++){
-			Bullet bullet = bullets.get(i);
-			graphicsMan.drawBullet(bullet, g2d, this);
-
-			boolean remove = gameLogic.moveBullet(bullet);
-			if(remove){
-				bullets.remove(i);
-				i--;
-			}
-		}
+		drawObjects(snapshot, alpha);
+	}
 
-		//Draw enemy bullets
-		for(int i=0; i<enemyBullets.size(); i++){
-			Bullet bullet = enemyBullets.get(i);
-			graphicsMan.drawEnemyBullet(bullet, g2d, this);
+	/**
+	 * Indicates if a snapshot is of a game being played, where only game objects are drawn.
+	 */
+	private boolean isPlaying(WorldSnapshot snapshot){
+		return snapshot.gameStarted && !snapshot.gameStarting && !snapshot.gameOver && !snapshot.gameWon;
+	}
 
-			boolean remove = gameLogic.moveEnemyBullet(bullet);
-			if(remove){
-				enemyBullets.remove(i);
-				i--;
+	/**
+	 * Draws the game objects of a snapshot into a back buffer, erasing only the regions its
+	 * last frame drew on, and sets the regions to repaint.
+	 */
+	private void drawDirtyFrame(FrameBuffer buffer, WorldSnapshot snapshot, float alpha){
+		// erase the objects of the buffer's last frame, or the whole buffer
+		Starfield starfield = getStarfield();
+		DirtyRegions drawn = buffer.drawn;
+		if(buffer.tracked && drawn.getCoverage() <= fullRedrawThreshold){
+			for(int i = 0; i < drawn.size(); i++){
+				starfield.draw(g2d, getStarTime(), drawn.getX(i), drawn.getY(i), drawn.getWidth(i), drawn.getHeight(i));
 			}
 		}
-
-		//Draw boss bullets
-		for(int i=0; i<bossBullets.size(); i++){
-			Bullet bullet = bossBullets.get(i);
-			graphicsMan.drawEnemyBullet(bullet, g2d, this);
-
-			boolean remove = gameLogic.moveEnemyBullet(bullet);
-			if(remove){
-				bossBullets.remove(i);
-				i--;
-			}
+		else{
+			starfield.draw(g2d, getStarTime());
 		}
 
-		if(status.getAsteroidsDestroyed() ==  5){status.setLevel(2);}
-		if(status.getAsteroidsDestroyed() == 15){status.setLevel(3);}
-		if(status.getAsteroidsDestroyed() == 25){status.setLevel(4);}
-		if(status.getAsteroidsDestroyed() == 35){status.setLevel(5);}	
-		if(status.getAsteroidsDestroyed() == 50){status.setLevel(6);}
-
-		if (status.getAsteroidsDestroyed() < 5) {
-			// draw asteroid
-			if(!status.isNewAsteroid()[0]) {
-				switch(asteroids.get(0).getTrajectory()){
-
-				case 0: // vertical
-
-					if( this.contains((int)asteroids.get(0).getX(), (int) asteroids.get(0).getY()) ){
-						asteroids.get(0).translate(0, asteroids.get(0).getSpeed());
-						graphicsMan.drawAsteroid(asteroids.get(0), g2d, this);
-						break;
-					}
-					else {
-						asteroids.get(0).setLocation(rand.nextInt(getWidth() - asteroids.get(0).width),0);
-					}
-					//sets new trajectory
-					asteroids.get(0).setTrajectory(rand.nextInt(5));
-
-					chooseNextLocation(0);
-
-
-					break;
-
-
-				case 1: // diagonal to right
-
-					if( (this.contains((int)asteroids.get(0).getX(), (int) asteroids.get(0).getY())) || (this.contains((int)asteroids.get(0).getX() + asteroids.get(0).getAsteroidWidth(), (int) asteroids.get(0).getY() + asteroids.get(0).getAsteroidHeight())) ){
-						asteroids.get(0).translate(1, asteroids.get(0).getSpeed()); //asteroid.getSpeed());
-						graphicsMan.drawAsteroid(asteroids.get(0), g2d, this);
-						break;
-					}
-					else {
-						asteroids.get(0).setLocation(rand.nextInt(getWidth() - asteroids.get(0).width),0);
-					}
-					//sets new trajectory
-					asteroids.get(0).setTrajectory(rand.nextInt(5));
-
-
-					chooseNextLocation(0);
-
-					break;
-
-
-				case 2: // diagonal left
-
-					if( (this.contains((int)asteroids.get(0).getX(), (int) asteroids.get(0).getY())) || (this.contains((int)asteroids.get(0).getX() + asteroids.get(0).getAsteroidWidth(), (int) asteroids.get(0).getY() + asteroids.get(0).getAsteroidHeight())) ){
-						asteroids.get(0).translate(-1, asteroids.get(0).getSpeed());
-						graphicsMan.drawAsteroid(asteroids.get(0), g2d, this);
-						break;
-					}
-					else {
-						asteroids.get(0).setLocation(rand.nextInt(getWidth() - asteroids.get(0).width),0);
-					}
-					//sets new trajectory
-					asteroids.get(0).setTrajectory(rand.nextInt(5));
-
-
-					chooseNextLocation(0);
-
-					break;
-
-				case 3: // diagonal right
-
-					if( (this.contains((int)asteroids.get(0).getX(), (int) asteroids.get(0).getY())) || (this.contains((int)asteroids.get(0).getX() + asteroids.get(0).getAsteroidWidth(), (int) asteroids.get(0).getY() + asteroids.get(0).getAsteroidHeight())) ){
-						asteroids.get(0).translate(2, asteroids.get(0).getSpeed());
-						graphicsMan.drawAsteroid(asteroids.get(0), g2d, this);
-						break;
-					}
-					else {
-						asteroids.get(0).setLocation(rand.nextInt(getWidth() - asteroids.get(0).width),0);
-					}
-					//sets new trajectory
-					asteroids.get(0).setTrajectory(rand.nextInt(5));
-
-
-					chooseNextLocation(0);
-
-					break;
-
-				case 4:  //diagonal left
-
-					if((this.contains((int)asteroids.get(0).getX(), (int) asteroids.get(0).getY())) || (this.contains((int)asteroids.get(0).getX() + asteroids.get(0).getAsteroidWidth(), (int) asteroids.get(0).getY() + asteroids.get(0).getAsteroidHeight())) ){
-						asteroids.get(0).translate(-2, asteroids.get(0).getSpeed());
-						graphicsMan.drawAsteroid(asteroids.get(0), g2d, this);
-						break;
-					}
-					else {
-						asteroids.get(0).setLocation(rand.nextInt(getWidth() - asteroids.get(0).width),0);
-					}
-					//sets new trajectory
-					asteroids.get(0).setTrajectory(rand.nextInt(5));
-
-
-					chooseNextLocation(0);
-
-					break;
-
-
-				}
-			}
-
-			else{				
-				asteroids.get(0).setTrajectory(rand.nextInt(5));
-				long currentTime = System.currentTimeMillis();
-				if((currentTime - lastAsteroidTime) > NEW_ASTEROID_DELAY){
-					// draw a new asteroid
-					lastAsteroidTime = currentTime;
-					status.setNewAsteroid(false, 0);						
-					asteroids.get(0).setLocation(rand.nextInt(getWidth() - asteroids.get(0).width),0);
-
-				}
-				else{
-					// draw explosion
-					graphicsMan.drawAsteroidExplosion(asteroidExplosion, g2d, this);
-				}
-			}
-			// check bullet-asteroid collisions for get(0)
-			for(int i=0; i<bullets.size(); i++){
-				Bullet bullet = bullets.get(i);
-				if(asteroids.get(0).intersects(bullet)){
-					// increase asteroids destroyed count
-					status.setAsteroidsDestroyed(status.getAsteroidsDestroyed() + 1);
-					// increase score
-					status.setScore(status.getScore() + 100);
-
-					// "remove" asteroid
-					asteroidExplosion = new Rectangle(
-							asteroids.get(0).x,
-							asteroids.get(0).y,
-							asteroids.get(0).width,
-							asteroids.get(0).height);							
-					asteroids.get(0).setLocation(-asteroids.get(0).width, -asteroids.get(0).height);							
-					status.setNewAsteroid(true, 0);
-					lastAsteroidTime = System.currentTimeMillis();
-
-					// play asteroid explosion sound
-					soundMan.playAsteroidExplosionSound();
-
-					// remove bullet
-					bullets.remove(i);
-					break;
-				}
-			}
-			// check ship-asteroid collisions for get(0)
-			if(asteroids.get(0).intersects(ship)){
-				// decrease number of ships left
-				status.setShipsLeft(status.getShipsLeft() - 1);
-				// decrease score to a minimum of zero
-				if (status.getScore() - 50 < 0) {
-					status.setScore(0);
-				} else 
-					status.setScore(status.getScore() - 50);
-
-				status.setAsteroidsDestroyed(status.getAsteroidsDestroyed() + 1);
-
-				// "remove" asteroid
-				asteroidExplosion = new Rectangle(
-						asteroids.get(0).x,
-						asteroids.get(0).y,
-						asteroids.get(0).width,
-						asteroids.get(0).height);
-				asteroids.get(0).setLocation(-asteroids.get(0).width, -asteroids.get(0).height);
-				status.setNewAsteroid(true, 0);
-				lastAsteroidTime = System.currentTimeMillis();
-
-				// "remove" ship
-				shipExplosion = new Rectangle(
-						ship.x,
-						ship.y,
-						ship.width,
-						ship.height);
-				ship.setLocation(this.getWidth() + ship.width, -ship.height);
-				status.setNewShip(true);
-				lastShipTime = System.currentTimeMillis();
-
-				// play ship explosion sound
-				soundMan.playShipExplosionSound();
-				// play asteroid explosion sound
-				soundMan.playAsteroidExplosionSound();
-			}
-
+		// draw the objects, recording where
+		drawn.clear();
+		graphicsMan.setDrawnRegions(drawn);
+		try{
+			drawObjects(snapshot, alpha);
 		}
-
-		else {
-
-			for (int i = 0; i < gameLogic.maxAsteroids; i++) {
-				if(!status.isNewAsteroid()[i]) {
-
-					switch(asteroids.get(i).getTrajectory()){
-
-					case 0: // vertical
-
-						if( this.contains((int)asteroids.get(i).getX(), (int) asteroids.get(i).getY()) ){
-							asteroids.get(i).translate(0, asteroids.get(i).getSpeed());
-							graphicsMan.drawAsteroid(asteroids.get(i), g2d, this);
-							break;
-						}
-						else {
-							asteroids.get(i).setLocation(rand.nextInt(getWidth() - asteroids.get(i).width),0);
-						}
-						//sets new trajectory
-						asteroids.get(i).setTrajectory(rand.nextInt(5));
-						;
-
-						chooseNextLocation(i);
-
-
-						break;
-
-
-					case 1: // diagonal to right
-
-						if( (this.contains((int)asteroids.get(i).getX(), (int) asteroids.get(i).getY())) || (this.contains((int)asteroids.get(i).getX() + asteroids.get(i).getAsteroidWidth(), (int) asteroids.get(i).getY() + asteroids.get(i).getAsteroidHeight())) ){
-							asteroids.get(i).translate(1, asteroids.get(i).getSpeed()); //asteroid.getSpeed());
-							graphicsMan.drawAsteroid(asteroids.get(i), g2d, this);
-							break;
-						}
-						else {
-							asteroids.get(i).setLocation(rand.nextInt(getWidth() - asteroids.get(i).width),0);
-						}
-
-						//sets new trajectory
-						asteroids.get(i).setTrajectory(rand.nextInt(5));
-
-						chooseNextLocation(i);
-
-						break;
-
-
-					case 2: // diagonal left
-
-						if( (this.contains((int)asteroids.get(i).getX(), (int) asteroids.get(i).getY())) || (this.contains((int)asteroids.get(i).getX() + asteroids.get(i).getAsteroidWidth(), (int) asteroids.get(i).getY() + asteroids.get(i).getAsteroidHeight())) ){
-							asteroids.get(i).translate(-1, asteroids.get(i).getSpeed());
-							graphicsMan.drawAsteroid(asteroids.get(i), g2d, this);
-							break;
-						}
-						else {
-							asteroids.get(i).setLocation(rand.nextInt(getWidth() - asteroids.get(i).width),0);
-						}
-						//sets new trajectory
-						asteroids.get(i).setTrajectory(rand.nextInt(5));
-
-						chooseNextLocation(i);
-
-						break;
-
-					case 3: // diagonal right
-
-						if( (this.contains((int)asteroids.get(i).getX(), (int) asteroids.get(i).getY())) || (this.contains((int)asteroids.get(i).getX() + asteroids.get(i).getAsteroidWidth(), (int) asteroids.get(i).getY() + asteroids.get(i).getAsteroidHeight())) ){
-							asteroids.get(i).translate(2, asteroids.get(i).getSpeed());
-							graphicsMan.drawAsteroid(asteroids.get(i), g2d, this);
-							break;
-						}
-						else {
-							asteroids.get(i).setLocation(rand.nextInt(getWidth() - asteroids.get(i).width),0);
-						}
-						//sets new trajectory
-						asteroids.get(i).setTrajectory(rand.nextInt(5));
-
-						chooseNextLocation(i);
-
-						break;
-
-					case 4:  //diagonal left
-
-						if((this.contains((int)asteroids.get(i).getX(), (int) asteroids.get(i).getY())) || (this.contains((int)asteroids.get(i).getX() + asteroids.get(i).getAsteroidWidth(), (int) asteroids.get(i).getY() + asteroids.get(i).getAsteroidHeight())) ){
-							asteroids.get(i).translate(-2, asteroids.get(i).getSpeed());
-							graphicsMan.drawAsteroid(asteroids.get(i), g2d, this);
-							break;
-						}
-						else {
-							asteroids.get(i).setLocation(rand.nextInt(getWidth() - asteroids.get(i).width),0);
-						}
-						//sets new trajectory
-						asteroids.get(i).setTrajectory(rand.nextInt(5));
-
-						chooseNextLocation(i);
-
-						break;
-					}
-				}
-
-				else{	
-					//sets new trajectory
-					asteroids.get(i).setTrajectory(rand.nextInt(5));
-					long currentTime = System.currentTimeMillis();
-					if((currentTime - lastAsteroidTime) > NEW_ASTEROID_DELAY){
-						// draw a new asteroid
-						lastAsteroidTime = currentTime;
-						status.setNewAsteroid(false, i);								
-						asteroids.get(i).setLocation(rand.nextInt(getWidth() - asteroids.get(i).width),0);		
-					}
-					else{
-						// draw explosion
-						graphicsMan.drawAsteroidExplosion(asteroidExplosion, g2d, this);
-					}
-				}
-			}
-
-
-			// check bullet-asteroid collisions for get(i)
-			for(int i=0; i<bullets.size(); i++){
-				Bullet bullet = bullets.get(i);
-				for (int j = 0 ; j < asteroids.size() ; j++){
-					if(asteroids.get(j).intersects(bullet)){
-						// increase asteroids destroyed count
-						status.setAsteroidsDestroyed(status.getAsteroidsDestroyed() + 1);
-						//increase score
-						status.setScore(status.getScore() + 100);
-
-						// "remove" asteroid
-						asteroidExplosion = new Rectangle(
-								asteroids.get(j).x,
-								asteroids.get(j).y,
-								asteroids.get(j).width,
-								asteroids.get(j).height);						
-						asteroids.get(j).setLocation(-asteroids.get(j).width, -asteroids.get(j).height);						
-						status.setNewAsteroid(true, j);
-						lastAsteroidTime = System.currentTimeMillis();
-
-						// play asteroid explosion sound
-						soundMan.playAsteroidExplosionSound();
-
-						// remove bullet
-						bullets.remove(i);
-						break;
-					}
-				}
-			}
-
-			// check ship-asteroid collisions for get(i)
-			for (int i = 0 ; i < asteroids.size();i++) {
-				if(asteroids.get(i).intersects(ship)){
-					// decrease number of ships left
-					status.setShipsLeft(status.getShipsLeft() - 1);
-
-					// decrease score to a minimum of zero 
-					if (status.getScore() - 50 < 0) {
-						status.setScore(0);
-					} else 
-						status.setScore(status.getScore() - 50);
-
-					status.setAsteroidsDestroyed(status.getAsteroidsDestroyed() + 1);
-
-					// "remove" asteroid
-					asteroidExplosion = new Rectangle(
-							asteroids.get(i).x,
-							asteroids.get(i).y,
-							asteroids.get(i).width,
-							asteroids.get(i).height);
-					asteroids.get(i).setLocation(-asteroids.get(i).width, -asteroids.get(i).height);
-					status.setNewAsteroid(true, 0);
-					lastAsteroidTime = System.currentTimeMillis();
-
-					// "remove" ship
-					shipExplosion = new Rectangle(
-							ship.x,
-							ship.y,
-							ship.width,
-							ship.height);
-					ship.setLocation(this.getWidth() + ship.width, -ship.height);
-					status.setNewShip(true);
-					lastShipTime = System.currentTimeMillis();
-
-					// play ship explosion sound
-					soundMan.playShipExplosionSound();
-					// play asteroid explosion sound
-					soundMan.playAsteroidExplosionSound();
-				}
-			}	
+		finally{
+			graphicsMan.setDrawnRegions(null);
 		}
+		hud.draw(g2d, getWidth());
+		drawn.add(0, 0, getWidth(), hud.getHeight());
+		buffer.tracked = true;
+
+		// the screen changes where the last frame and this one drew
+		repaintRegions.clear();
+		repaintRegions.addAll(lastDrawn);
+		repaintRegions.addAll(drawn);
+		repaintAll = !lastDrawnTracked || repaintRegions.getCoverage() > fullRedrawThreshold;
+		lastDrawn.clear();
+		lastDrawn.addAll(drawn);
+		lastDrawnTracked = true;
+	}
 
-		if (status.getAsteroidsDestroyed() >= 15) {
-
-			// draw enemy ship
-
-			int leftLimit = 0 ;
-			int rightLimit = this.getWidth() - enemy.getShipWidth();
-
-			if(!status.isNewEnemyShip()){	
-				if(enemy.getX() != rightLimit || enemy.getX() != leftLimit)  {
-					enemy.translate(direction,0);
-					graphicsMan.drawEnemyShip(enemy, g2d, this);	
-
-					if(enemy.getX() == rightLimit)
-						direction = -1;
-					else if(enemy.getX() == leftLimit)
-						direction = 1;
-
-					// fire bullets
-					if (currentTime2 % 100 == 0) {
-						gameLogic.fireEnemyBullet();
-					}	
-				}
-				else{
-					status.setNewEnemyShip(true);	
-				}
-
-			}
-			else{
-				// else draw a new one
-				long currentTime = System.currentTimeMillis();
-				if((currentTime - lastEnemyShipTime) > NEW_ENEMY_SHIP_DELAY){
-					// draw a new asteroid
-					lastEnemyShipTime = currentTime;
-					status.setNewEnemyShip(false);	
-					enemy = gameLogic.newEnemyShip(this);
-
-				}
-				else{
-					// draw explosion
-					graphicsMan.drawShipExplosion(enemyShipExplosion, g2d, this);
-				}
-			}
-
-
-			// check ship-enemy ship collisions
-			if(enemy.intersects(ship)){
-				// decrease number of ships left
-				status.setShipsLeft(status.getShipsLeft() - 1);
-
-				// decrease score to a minimum of zero
-				if (status.getScore() - 100 < 0) {
-					status.setScore(0);
-				} else 
-					status.setScore(status.getScore() - 100);
-
-
-				// "remove" enemy ship
-				enemyShipExplosion = new Rectangle(
-						enemy.x,
-						enemy.y,
-						enemy.width,
-						enemy.height);
-				enemy.setLocation(enemy.width, -enemy.height);
-				status.setNewEnemyShip(true);
-				lastEnemyShipTime = System.currentTimeMillis();
-
-				// "remove" ship
-				shipExplosion = new Rectangle(
-						ship.x,
-						ship.y,
-						ship.width,
-						ship.height);
-				ship.setLocation(this.getWidth() + ship.width, -ship.height);
-				status.setNewShip(true);
-				lastShipTime = System.currentTimeMillis();
-
-				// play ship explosion sound
-				soundMan.playShipExplosionSound();
-				// play ship explosion sound
-				soundMan.playShipExplosionSound();
-			}
-
-			// check ship bullet-enemy ship collisions
-			for(int i=0; i<bullets.size(); i++){
-				Bullet bullet = bullets.get(i);
-				if(enemy.intersects(bullet)){
-					//increase score
-					status.setScore(status.getScore() + 500);
-
-					// "remove" enemy
-					enemyShipExplosion = new Rectangle(
-							enemy.x,
-							enemy.y,
-							enemy.width,
-							enemy.height);
-
-					enemy.setLocation(-enemy.width, -enemy.height);
-
-					status.setNewEnemyShip(true);
-					lastEnemyShipTime = System.currentTimeMillis();
-
-					// play asteroid explosion sound
-					soundMan.playShipExplosionSound();
-
-					// remove bullet
-					bullets.remove(i);
-					break;
-				}
-			}
-			// check enemy bullet-ship collisions
-			for(int i=0; i<enemyBullets.size(); i++){
-				Bullet bullet = enemyBullets.get(i);
-				if(ship.intersects(bullet)){
-					// decrease number of ships
-					status.setShipsLeft(status.getShipsLeft() - 1);
-					// decrease score to a minimum of zero
-					if (status.getScore() - 75 < 0) {
-						status.setScore(0);
-					} else 
-						status.setScore(status.getScore() - 75);
-
-
-
-					// "remove" ship
-					// "remove" ship
-					shipExplosion = new Rectangle(
-							ship.x,
-							ship.y,
-							ship.width,
-							ship.height);
-					ship.setLocation(this.getWidth() + ship.width, -ship.height);
-					status.setNewShip(true);
-					lastShipTime = System.currentTimeMillis();
-
-					// play ship explosion sound
-					soundMan.playShipExplosionSound();
-					// play ship explosion sound
-					soundMan.playShipExplosionSound();
-					// remove bullet
-					enemyBullets.remove(i);
-					break;
-				}
-			}	
+	/**
+	 * Draws the game objects of a snapshot.
+	 */
+	private void drawObjects(WorldSnapshot snapshot, float alpha){
+		// draw bullets
+		WorldSnapshot.Positions bullets = snapshot.bullets;
+		for(int i=0; i<bullets.size(); i++){
+			graphicsMan.drawBullet(bullets.getX(i, alpha), bullets.getY(i, alpha), g2d, this);
 		}
 
-		if (status.getAsteroidsDestroyed() >= 25) {
-			// increase asteroids speed 
-			for (int i = 0; i < asteroids.size(); i++){
-				asteroids.get(i).setSpeed(6);
-			}
+		// draw enemy bullets
+		WorldSnapshot.Positions enemyBullets = snapshot.enemyBullets;
+		for(int i=0; i<enemyBullets.size(); i++){
+			graphicsMan.drawEnemyBullet(enemyBullets.getX(i, alpha), enemyBullets.getY(i, alpha), g2d, this);
 		}
 
-		if (status.getAsteroidsDestroyed() >= 35) {
-			// increase asteroids speed
-			for (int i = 0; i < asteroids.size(); i++){
-				asteroids.get(i).setSpeed(8);
-			}
-
-
+		// draw boss bullets
+		WorldSnapshot.Positions bossBullets = snapshot.bossBullets;
+		for(int i=0; i<bossBullets.size(); i++){
+			graphicsMan.drawEnemyBullet(bossBullets.getX(i, alpha), bossBullets.getY(i, alpha), g2d, this);
 		}
 
-		if (status.getAsteroidsDestroyed() >= 50) {
-			// draw boss ship
-			if(doOnce){
-				h = (int)boss.getX();
-				k = (int)boss.getY() -150;	
-				radius = 100;  
-				xCoord = h;				
-				yCoord = k+radius;
-				doOnce = false;
-			}
-
-			if(!bossDestroyed){
-				boss.setLocation(xCoord,yCoord);
-				graphicsMan.drawBossShip(boss, g2d, this);
-				graphicsMan.drawBossHealthBar(boss, g2d, this);
-				// fire bullets
-				if (currentTime2 % 25 == 0) {
-					gameLogic.fireBossBullet();
-				}
-
-				if(circleBottom){
-					xCoord += 1;
-					yCoord = (int) Math.sqrt(Math.pow(radius, 2) -  Math.pow((xCoord - h), 2)) + k;
-					if(xCoord == (h + radius)){
-						circleBottom = false;
-					}
-				}
-
-				else {
-					xCoord -=1;
-					yCoord = (int) -(Math.sqrt(Math.pow(radius, 2) -  Math.pow((xCoord - h), 2))) + k;
-					if(xCoord == (h - radius)){
-						circleBottom = true;
-					}
-
-				}				
-			}			
-			else{
-				//doesn't need to set new trajectory as there's only one boss
-				//draw explosion 
-				bossDestroyed = true;
-				graphicsMan.drawBossExplosion(bossShipExplosion, g2d, this);
-			}
+		// draw asteroids
+		WorldSnapshot.Positions asteroids = snapshot.asteroids;
+		for(int i=0; i<asteroids.size(); i++){
+			graphicsMan.drawAsteroid(asteroids.getX(i, alpha), asteroids.getY(i, alpha), g2d, this);
+		}
 
-			// check ship-boss ship collisions
-			if(ship.intersects(boss)){
-				// decrease number of ships left
-				status.setShipsLeft(status.getShipsLeft() - 1);
-
-				// decrease score to a minimum of zero
-				if (status.getScore() - 500 < 0) {
-					status.setScore(0);
-				} else 
-					status.setScore(status.getScore() - 500);
-
-				// boss can't be destroyed by crashing into it
-
-				// "remove" ship
-				shipExplosion = new Rectangle(
-						ship.x,
-						ship.y,
-						ship.width,
-						ship.height);
-				ship.setLocation(this.getWidth() + ship.width, -ship.height);
-				status.setNewShip(true);
-				lastShipTime = System.currentTimeMillis();
-
-				// play ship explosion sound
-				soundMan.playShipExplosionSound();
-				// play asteroid explosion sound
-				soundMan.playAsteroidExplosionSound();
-			}
-			// check ship bullet-boss ship collisions
-			for(int i=0; i<bullets.size(); i++){
-				Bullet bullet = bullets.get(i);
-				if(boss.intersects(bullet)){
-
-					if (boss.getBossHealth() < 1) {
-						// increase score
-						status.setScore(status.getScore() + 1000);
-						// " remove" enemy
-						bossShipExplosion = new Rectangle(boss.x, boss.y, boss.width, boss.height);
-						boss.setLocation(-boss.width, -boss.height);
-						bossDestroyed = true;
-						// play asteroid explosion sound
-						soundMan.playShipExplosionSound();
-
-					} else {
-						boss.setBossHealth(boss.getBossHealth() - 2);
-					}
-					// remove bullet
-					bullets.remove(i);
-					break;
-				}
-			}
-			// check boss bullet-ship collisions
-			for(int i=0; i<bossBullets.size(); i++){
-				Bullet bullet = bossBullets.get(i);
-				if(ship.intersects(bullet)){
-					// decrease number of ships
-					status.setShipsLeft(status.getShipsLeft() - 1);
-
-					// decrease score to a minimum of zero
-					if (status.getScore() - 100 < 0) {
-						status.setScore(0);
-					} else 
-						status.setScore(status.getScore() - 100);
-
-
-
-					// "remove" ship
-					// "remove" ship
-					shipExplosion = new Rectangle(
-							ship.x,
-							ship.y,
-							ship.width,
-							ship.height);
-					ship.setLocation(this.getWidth() + ship.width, -ship.height);
-					status.setNewShip(true);
-					lastShipTime = System.currentTimeMillis();
-
-					// play ship explosion sound
-					soundMan.playShipExplosionSound();
-					// play ship explosion sound
-					soundMan.playShipExplosionSound();
-					// remove bullet
-					bossBullets.remove(i);
-					break;
-				}
-			}		
+		// draw enemy ship
+		WorldSnapshot.Positions enemyShips = snapshot.enemyShips;
+		for(int i=0; i<enemyShips.size(); i++){
+			graphicsMan.drawEnemyShip(enemyShips.getX(i, alpha), enemyShips.getY(i, alpha), g2d, this);
 		}
 
+		// draw boss ship
+		WorldSnapshot.Positions bossShips = snapshot.bossShips;
+		for(int i=0; i<bossShips.size(); i++){
+			int bossX = bossShips.getX(i, alpha);
+			int bossY = bossShips.getY(i, alpha);
+			graphicsMan.drawBossShip(bossX, bossY, g2d, this);
+			graphicsMan.drawBossHealthBar(bossX, bossY, snapshot.bossWidth, snapshot.bossHealth,
+					snapshot.bossDefaultHealth, g2d, this);
+		}
 
 		// draw ship
-		if(!status.isNewShip()){
-			// draw it in its current location
-			graphicsMan.drawShip(ship, g2d, this);
-
-		} 
-
-
-		else{
-			// draw a new one
-			long currentTime = System.currentTimeMillis();
-
-			if((currentTime - lastShipTime) > NEW_SHIP_DELAY){
-				lastShipTime = currentTime;
-				status.setNewShip(false);
-				ship = gameLogic.newShip(this);
-			}
-			else{
-				// draw explosion
-				graphicsMan.drawShipExplosion(shipExplosion, g2d, this);
-			}
+		WorldSnapshot.Positions ships = snapshot.ships;
+		for(int i=0; i<ships.size(); i++){
+			graphicsMan.drawShip(ships.getX(i, alpha), ships.getY(i, alpha), g2d, this);
 		}
 
+		drawExplosions(snapshot);
+	}
 
-		// update asteroids destroyed label
-		destroyedValueLabel.setText(Long.toString(status.getAsteroidsDestroyed()));
+	/**
+	 * Draws the explosions of a snapshot.
+	 */
+	private void drawExplosions(WorldSnapshot snapshot){
+		WorldSnapshot.Positions asteroidExplosions = snapshot.asteroidExplosions;
+		for(int i=0; i<asteroidExplosions.size(); i++){
+			graphicsMan.drawAsteroidExplosion(asteroidExplosions.getX(i, 1), asteroidExplosions.getY(i, 1), g2d, this);
+		}
+		WorldSnapshot.Positions shipExplosions = snapshot.shipExplosions;
+		for(int i=0; i<shipExplosions.size(); i++){
+			graphicsMan.drawShipExplosion(shipExplosions.getX(i, 1), shipExplosions.getY(i, 1), g2d, this);
+		}
+		WorldSnapshot.Positions bossExplosions = snapshot.bossExplosions;
+		for(int i=0; i<bossExplosions.size(); i++){
+			graphicsMan.drawBossExplosion(bossExplosions.getX(i, 1), bossExplosions.getY(i, 1), g2d, this);
+		}
+	}
 
-		// update ships left label
-		shipsValueLabel.setText(Integer.toString(status.getShipsLeft()));
+	/**
+	 * Updates the status line with the values of a snapshot.
+	 */
+	private void updateHud(WorldSnapshot snapshot){
+		hud.setValue(Hud.DESTROYED, snapshot.asteroidsDestroyed);
+		hud.setValue(Hud.SHIPS, snapshot.shipsLeft);
+		hud.setValue(Hud.SCORE, snapshot.score);
+		hud.setValue(Hud.LEVEL, snapshot.level);
+	}
 
-		// update score label
-		pointsValueLabel.setText(Long.toString(status.getScore()));
+	/**
+	 * Lays out and draws the texts of the banners for the current width of the screen.
+	 */
+	private void layOutTexts() {
+		textWidth = getWidth();
+		loadingText = new TextImage("Loading...", originalFont, Color.WHITE);
+		getReadyText = new TextImage("Get Ready!", originalFont.deriveFont(originalFont.getSize2D() + 1), Color.WHITE);
+		newGameText = new TextImage("Press <Space> to Start a New Game.", originalFont, Color.WHITE);
+		exitGameText = new TextImage("Press <Esc> to Exit the Game.", originalFont, Color.WHITE);
+		titleSizes = TextImage.createSizes("Funk Space", originalFont.deriveFont(Font.BOLD | Font.ITALIC),
+				new Color(0xb666d2), textWidth - 10, BANNER_SIZES);
+		gameOverSizes = TextImage.createSizes("GAME OVER", originalFont.deriveFont(Font.BOLD),
+				Color.WHITE, textWidth - 10, BANNER_SIZES);
+		gameWonSizes = TextImage.createSizes("GAME WON!", originalFont.deriveFont(Font.BOLD),
+				Color.WHITE, textWidth - 20, BANNER_SIZES);
+		growingText = null;
+	}
 
-		// update score label
-		levelValueLabel.setText(Long.toString(status.getLevel()));
+	/**
+	 * Returns the size a growing banner is at: it starts growing the first time it is drawn,
+	 * and steps through its sizes until it reaches the biggest.
+	 * @param sizes the sizes of the banner, smallest first
+	 * @return the text at the current size
+	 */
+	private TextImage getGrowingText(TextImage[] sizes) {
+		long now = System.nanoTime();
+		if(sizes != growingText){
+			growingText = sizes;
+			growingStart = now;
+		}
+		float size = sizes[0].getFont().getSize2D() + (now - growingStart) / 1e9f * BANNER_GROWTH_POINTS_PER_SECOND;
+		int i = 0;
+		while(i + 1 < sizes.length && sizes[i + 1].getFont().getSize2D() <= size){
+			i++;
+		}
+		return sizes[i];
 	}
 
+	/**
+	 * Draws a text centered on the screen.
+	 */
+	private void drawCentered(TextImage text) {
+		int strX = (this.getWidth() - text.getWidth())/2;
+		int strY = (this.getHeight() + text.getAscent())/2;
+		text.draw(strX, strY, g2d);
+	}
 
 	/**
 	 * Draws the "Game Over" message.
 	 */
 	private void drawGameOver() {
-		String gameOverStr = "GAME OVER";
-		Font currentFont = biggestFont == null? bigFont : biggestFont;
-		float fontSize = currentFont.getSize2D();
-		bigFont = currentFont.deriveFont(fontSize + 1).deriveFont(Font.BOLD);
-		FontMetrics fm = g2d.getFontMetrics(bigFont);
-		int strWidth = fm.stringWidth(gameOverStr);
-		if(strWidth > this.getWidth() - 10){
-			biggestFont = currentFont;
-			bigFont = biggestFont;
-			fm = g2d.getFontMetrics(bigFont);
-			strWidth = fm.stringWidth(gameOverStr);
-		}
-		int ascent = fm.getAscent();
-		int strX = (this.getWidth() - strWidth)/2;
-		int strY = (this.getHeight() + ascent)/2;
-		g2d.setFont(bigFont);
-		g2d.setPaint(Color.WHITE);
-		g2d.drawString(gameOverStr, strX, strY);
+		drawCentered(getGrowingText(gameOverSizes));
 	}
 
 	/**
 	 * Draws the "Game Won" message.
 	 */
 	private void drawYouWon() {
-		String gameWonStr = "GAME WON!";
-		Font currentFont = biggestFont == null? bigFont : biggestFont;
-		float fontSize = currentFont.getSize2D();
-		bigFont = currentFont.deriveFont(fontSize + 1).deriveFont(Font.BOLD);
-		FontMetrics fm = g2d.getFontMetrics(bigFont);
-		int strWidth = fm.stringWidth(gameWonStr);
-		if(strWidth > this.getWidth() - 20){
-			biggestFont = currentFont;
-			bigFont = biggestFont;
-			fm = g2d.getFontMetrics(bigFont);
-			strWidth = fm.stringWidth(gameWonStr);
-		}
-		int ascent = fm.getAscent();
-		int strX = (this.getWidth() - strWidth)/2;
-		int strY = (this.getHeight() + ascent)/2;
-		g2d.setFont(bigFont);
-		g2d.setPaint(Color.WHITE);
-		g2d.drawString(gameWonStr, strX, strY);
+		drawCentered(getGrowingText(gameWonSizes));
 	}
 
 	/**
 	 * Draws the initial "Get Ready!" message.
 	 */
 	public void drawGetReady() {
-		String readyStr = "Get Ready!";
-		g2d.setFont(originalFont.deriveFont(originalFont.getSize2D() + 1));
-		FontMetrics fm = g2d.getFontMetrics();
-		int ascent = fm.getAscent();
-		int strWidth = fm.stringWidth(readyStr);
-		int strX = (this.getWidth() - strWidth)/2;
-		int strY = (this.getHeight() + ascent)/2;
-		g2d.setPaint(Color.WHITE);
-		g2d.drawString(readyStr, strX, strY);
+		drawCentered(getReadyText);
 	}
 
 	/**
-	 * Draws the specified number of stars randomly on the game screen.
-	 * @param numberOfStars the number of stars to draw
+	 * Returns the starfield for the current size of the screen, building it the first time
+	 * and whenever the screen is resized.
+	 * @return the starfield
 	 */
-	private void drawStars(int numberOfStars) {
-		g2d.setColor(Color.WHITE);
-		for(int i=0; i<numberOfStars; i++){
-			int x = (int)(Math.random() * this.getWidth());
-			int y = (int)(Math.random() * this.getHeight());
-			g2d.drawLine(x, y, x, y);
+	private Starfield getStarfield() {
+		if(starfield == null || starfield.getWidth() != getWidth() || starfield.getHeight() != getHeight()){
+			starfield = new Starfield(Math.max(1, getWidth()), Math.max(1, getHeight()), starsRand);
 		}
+		return starfield;
+	}
+
+	/**
+	 * Returns the time the starfield is drawn at: the current time, or a fixed one with dirty
+	 * rendering, where the background must not change.
+	 * @return the time in nanoseconds
+	 */
+	private long getStarTime() {
+		return dirtyRendering ? 0 : System.nanoTime();
 	}
 
 	/**
 	 * Display initial game title screen.
 	 */
 	private void initialMessage() {
-		String gameTitleStr = "Funk Space";
-
-		Font currentFont = biggestFont == null? bigFont : biggestFont;
-		float fontSize = currentFont.getSize2D();
-		bigFont = currentFont.deriveFont(fontSize + 1).deriveFont(Font.BOLD).deriveFont(Font.ITALIC);
-		FontMetrics fm = g2d.getFontMetrics(bigFont);
-		int strWidth = fm.stringWidth(gameTitleStr);
-		if(strWidth > this.getWidth() - 10){
-			bigFont = currentFont;
-			biggestFont = currentFont;
-			fm = g2d.getFontMetrics(currentFont);
-			strWidth = fm.stringWidth(gameTitleStr);
-		}
-		g2d.setFont(bigFont);
-		int ascent = fm.getAscent();
-		int strX = (this.getWidth() - strWidth)/2;
+		TextImage title = getGrowingText(titleSizes);
+		int ascent = title.getAscent();
+		int strX = (this.getWidth() - title.getWidth())/2;
 		int strY = (this.getHeight() + ascent)/2 - ascent;
-		g2d.setPaint(new Color(0xb666d2));
-		g2d.drawString(gameTitleStr, strX, strY);
-
-		g2d.setFont(originalFont);
-		fm = g2d.getFontMetrics();
-		String newGameStr = "Press <Space> to Start a New Game.";
-		strWidth = fm.stringWidth(newGameStr);
-		strX = (this.getWidth() - strWidth)/2;
-		strY = (this.getHeight() + fm.getAscent())/2 + ascent + 16;
-		g2d.setPaint(Color.WHITE);
-		g2d.drawString(newGameStr, strX, strY);
-
-		fm = g2d.getFontMetrics();
-		String exitGameStr = "Press <Esc> to Exit the Game.";
-		strWidth = fm.stringWidth(exitGameStr);
-		strX = (this.getWidth() - strWidth)/2;
+		title.draw(strX, strY, g2d);
+
+		strX = (this.getWidth() - newGameText.getWidth())/2;
+		strY = (this.getHeight() + newGameText.getAscent())/2 + ascent + 16;
+		newGameText.draw(strX, strY, g2d);
+
+		strX = (this.getWidth() - exitGameText.getWidth())/2;
 		strY = strY + 16;
-		g2d.drawString(exitGameStr, strX, strY);
+		exitGameText.draw(strX, strY, g2d);
 	}
 
 	/**
 	 * Prepare screen for game over.
+	 * @param snapshot the first snapshot of the game over
 	 */
-	public void doGameOver(){
-		shipsValueLabel.setForeground(new Color(128, 0, 0));
-		if (status.getScore() > 0) 
-			pointsValueLabel.setForeground(Color.YELLOW);
+	private void doGameOver(WorldSnapshot snapshot){
+		hud.setColor(Hud.SHIPS, HUD_DIMMED);
+		if (snapshot.score > 0) 
+			hud.setColor(Hud.SCORE, Color.YELLOW);
 		else
-			pointsValueLabel.setForeground(new Color(128, 0, 0));
+			hud.setColor(Hud.SCORE, HUD_DIMMED);
 
 	}
 
 	/**
 	 * Prepare screen for "Game Won"!.
+	 * @param snapshot the first snapshot of the game won
 	 */
-	public void doGameWon(){
-		shipsValueLabel.setForeground(Color.YELLOW);
-		pointsValueLabel.setForeground(Color.YELLOW);
+	private void doGameWon(WorldSnapshot snapshot){
+		hud.setColor(Hud.SHIPS, Color.YELLOW);
+		hud.setColor(Hud.SCORE, Color.YELLOW);
 
 	}
 
 	/**
 	 * Prepare screen for a new game.
+	 * @param snapshot the first snapshot of the new game
 	 */
-	public void doNewGame(){		
-		lastAsteroidTime = -NEW_ASTEROID_DELAY;
-		lastShipTime = -NEW_SHIP_DELAY;
+	private void doNewGame(WorldSnapshot snapshot){		
+		// set the status line's values
+		hud.setColor(Hud.SCORE, Color.LIGHT_GRAY); 
+		hud.setValue(Hud.SCORE, 0);
+		hud.setColor(Hud.SHIPS, Color.LIGHT_GRAY);
+		hud.setValue(Hud.SHIPS, snapshot.shipsLeft);
+		hud.setValue(Hud.DESTROYED, snapshot.asteroidsDestroyed);
+		hud.setValue(Hud.LEVEL, 1);
 
-		bigFont = originalFont;
-		biggestFont = null;
+	}
 
-		// set labels' text
-		pointsValueLabel.setForeground(Color.DARK_GRAY); 
-		pointsValueLabel.setText("0");
-		shipsValueLabel.setForeground(Color.DARK_GRAY);
-		shipsValueLabel.setText(Integer.toString(status.getShipsLeft()));
-		destroyedValueLabel.setText(Long.toString(status.getAsteroidsDestroyed()));
-		levelValueLabel.setText("1");
+	/**
+	 * Sets the source of the game's random numbers. The stars are drawn with their own stream.
+	 * @param random the game's random streams
+	 */
+	public void setGameRandom(GameRandom random) {
+		this.starsRand = random.getStream(GameRandom.Stream.STARS);
+		this.starfield = null;
+	}
 
+	/**
+	 * Indicates if frames are drawn with active rendering.
+	 * @return true if the screen renders actively, false if frames are painted by Swing
+	 */
+	public boolean isActiveRendering() {
+		return canvas != null;
 	}
 
 	/**
-	 * Sets the game graphics manager.
-	 * @param graphicsMan the graphics manager
+	 * Chooses between drawing frames with active rendering, into a canvas with its
+	 * own buffer strategy, or painting them with Swing. Must be called before the
+	 * screen is shown.
+	 * @param activeRendering true to render actively, false to paint frames with Swing
 	 */
-	public void setGraphicsMan(GraphicsManager graphicsMan) {
-		this.graphicsMan = graphicsMan;
+	public void setActiveRendering(boolean activeRendering) {
+		if(activeRendering == isActiveRendering()){
+			return;
+		}
+		if(activeRendering){
+			canvas = new Canvas();
+			canvas.setSize(getSize());
+			canvas.setBackground(Color.BLACK);
+			// the canvas is only drawn by the render thread, and keys go to the main frame
+			canvas.setIgnoreRepaint(true);
+			canvas.setFocusable(false);
+			setLayout(new BorderLayout());
+			add(canvas, BorderLayout.CENTER);
+		}
+		else{
+			remove(canvas);
+			canvas = null;
+			bufferStrategy = null;
+		}
 	}
 
 	/**
-	 * Sets the game logic handler
-	 * @param gameLogic the game logic handler
+	 * Indicates if only the changing regions of frames are drawn.
+	 * @return true if the screen uses dirty rendering
 	 */
-	public void setGameLogic(GameLogic gameLogic) {
-		this.gameLogic = gameLogic;
-		this.status = gameLogic.getStatus();
-		this.soundMan = gameLogic.getSoundMan();
+	public boolean isDirtyRendering() {
+		return dirtyRendering;
 	}
 
 	/**
-	 * Sets the label that displays the value for asteroids destroyed.
-	 * @param destroyedValueLabel the label to set
+	 * Chooses between drawing only the regions of the frames the game objects move in,
+	 * over a still starfield, or drawing whole frames. Has no effect with active rendering.
+	 * Must be called before the screen is shown.
+	 * @param dirtyRendering true to draw only the changing regions, false to draw whole frames
 	 */
-	public void setDestroyedValueLabel(JLabel destroyedValueLabel) {
-		this.destroyedValueLabel = destroyedValueLabel;
+	public void setDirtyRendering(boolean dirtyRendering) {
+		this.dirtyRendering = dirtyRendering;
 	}
 
 	/**
-	 * Sets the label that displays the value for ship (lives) left
-	 * @param shipsValueLabel the label to set
+	 * Returns the fraction of the screen past which dirty rendering draws the whole frame.
+	 * @return the full redraw threshold
 	 */
-	public void setShipsValueLabel(JLabel shipsValueLabel) {
-		this.shipsValueLabel = shipsValueLabel;
+	public float getFullRedrawThreshold() {
+		return fullRedrawThreshold;
 	}
 
 	/**
-	 * Sets the label that displays the value for current points scored.
-	 * @param pointsValueLabel the label to set
+	 * Sets the fraction of the screen past which dirty rendering draws the whole frame.
+	 * Must be called before the screen is shown.
+	 * @param fullRedrawThreshold the full redraw threshold, between 0 and 1
 	 */
-	public void setPointsValueLabel(JLabel pointsValueLabel) {
-		this.pointsValueLabel = pointsValueLabel;
+	public void setFullRedrawThreshold(float fullRedrawThreshold) {
+		if(!(fullRedrawThreshold >= 0 && fullRedrawThreshold <= 1)){
+			throw new IllegalArgumentException("Invalid full redraw threshold: " + fullRedrawThreshold);
+		}
+		this.fullRedrawThreshold = fullRedrawThreshold;
 	}
 
 	/**
-	 * Sets the label that displays the current level.
-	 * @param levelNumber the label to set
+	 * Returns the game graphics manager.
+	 * @return the graphics manager
 	 */
-	public void setLevelNumberLabel(JLabel levelNumber) {
-		this.levelValueLabel = levelNumber;
+	public GraphicsManager getGraphicsMan() {
+		return graphicsMan;
 	}
 
 	/**
-	 * Chooses the next location to draw asteroid based on its determined trajectory.
+	 * Sets the loader of the game's assets, to show its progress until the graphics
+	 * manager is set.
+	 * @param assetLoader the asset loader
 	 */
-	public void chooseNextLocation(int k) {
-
-		switch (asteroids.get(k).getTrajectory() % 2) {
-
-		case 0:
-			// vertical trajectory, so it can be drawn anywhere on screen
-			asteroids.get(k).setLocation(getWidth() / 2 - 100 + rand.nextInt(getWidth() / 2),0); 
-			break;
-		case 1:
-			// Trajectory is towards right, so draw it on the left side of the screen
-			asteroids.get(k).setLocation(rand.nextInt(getWidth() / 3),0);
-			break;
-		case 2:
-			// Trajectory is towards left, so draw it on the right side of the screen
-			asteroids.get(k).setLocation(getWidth() - rand.nextInt(getWidth() / 3),0);
-			break;
-		}
+	public void setAssetLoader(AssetLoader assetLoader) {
+		this.assetLoader = assetLoader;
+	}
 
+	/**
+	 * Sets the game graphics manager. Until it is set, the screen shows that the game is loading.
+	 * @param graphicsMan the graphics manager
+	 */
+	public void setGraphicsMan(GraphicsManager graphicsMan) {
+		this.graphicsMan = graphicsMan;
 	}
 
+	/**
+	 * A back buffer image along with the graphics canvas used to draw into it, and the
+	 * regions its last frame drew game objects on.
+	 */
+	private static class FrameBuffer {
+		private final BufferedImage image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+		private final Graphics2D g2d = image.createGraphics();
+		// true if the image holds the starfield with only the drawn regions on top of it
+		private boolean tracked;
+		private final DirtyRegions drawn = new DirtyRegions(800, 600);
+	}
 
-}
\ No newline at end of file
+}
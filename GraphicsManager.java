@@ -5,12 +5,15 @@ import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.awt.image.ImageObserver;
+import java.io.IOException;
+import java.net.URL;
 
 import javax.imageio.ImageIO;
 import javax.swing.JOptionPane;
 
 import rbadia.voidspace.model.Asteroid;
-import rbadia.voidspace.model.Bullet;
+import rbadia.voidspace.model.CollisionMask;
+import rbadia.voidspace.model.CollisionMasks;
 import rbadia.voidspace.model.EnemyShip;
 import rbadia.voidspace.model.Ship;
 import rbadia.voidspace.model.BossShip;
@@ -19,39 +22,170 @@ import rbadia.voidspace.model.BossShip;
  * Manages and draws game graphics and images.
  */
 public class GraphicsManager {
-	private BufferedImage shipImg;
-	private BufferedImage bulletImg;
-	private BufferedImage enemyBulletImg;
-	private BufferedImage asteroidImg;
-	private BufferedImage asteroidExplosionImg;
-	private BufferedImage shipExplosionImg;
-	private BufferedImage bossExplosionImg;
-	private BufferedImage enemyImg;
-	private BufferedImage bossImg;
-	private BufferedImage backdropShipImg;
+	// indexes of the sprites in the atlas
+	private static final int SHIP = 0;
+	private static final int BULLET = 1;
+	private static final int ENEMY_BULLET = 2;
+	private static final int ASTEROID = 3;
+	private static final int ASTEROID_EXPLOSION = 4;
+	private static final int SHIP_EXPLOSION = 5;
+	private static final int BOSS_EXPLOSION = 6;
+	private static final int ENEMY = 7;
+	private static final int BOSS = 8;
+	private static final int BACKDROP_SHIP = 9;
+
+	private static final String[] SPRITE_FILES = {"ship.png", "bullet.png", "enemyBullet.png",
+		"asteroid.png", "asteroidExplosion.png", "shipExplosion.png", "bossExplosion.png",
+		"enemy.png", "boss.png", "backdropShip.png"};
+
+	private SpriteAtlas atlas;
+
+	// where the regions drawn on are recorded, or null
+	private DirtyRegions drawnRegions;
+
+	private CollisionMasks masks;
 	
 	/**
 	 * Creates a new graphics manager and loads the game images.
 	 */
 	public GraphicsManager(){
-    	// load images
+		this(readSprites());
+	}
+
+	/**
+	 * Creates a new graphics manager from game images already loaded.
+	 * @param sprites the images, in the order of {@link #getSpriteFile(int)}
+	 */
+	public GraphicsManager(BufferedImage[] sprites){
+		this.masks = createMasks(sprites);
+
+		// draw everything from a single image in the screen's format
+		this.atlas = new SpriteAtlas(sprites);
+	}
+
+	/**
+	 * Loads all the game images, one after the other.
+	 */
+	private static BufferedImage[] readSprites(){
+		BufferedImage[] sprites = new BufferedImage[SPRITE_FILES.length];
 		try {
-			this.shipImg = ImageIO.read(getClass().getResource("/rbadia/voidspace/graphics/ship.png"));
-			this.asteroidImg = ImageIO.read(getClass().getResource("/rbadia/voidspace/graphics/asteroid.png"));
-			this.asteroidExplosionImg = ImageIO.read(getClass().getResource("/rbadia/voidspace/graphics/asteroidExplosion.png"));
-			this.shipExplosionImg = ImageIO.read(getClass().getResource("/rbadia/voidspace/graphics/shipExplosion.png"));
-			this.bossExplosionImg = ImageIO.read(getClass().getResource("/rbadia/voidspace/graphics/bossExplosion.png"));
-			this.bulletImg = ImageIO.read(getClass().getResource("/rbadia/voidspace/graphics/bullet.png"));
-			this.enemyBulletImg = ImageIO.read(getClass().getResource("/rbadia/voidspace/graphics/enemyBullet.png"));
-			this.enemyImg = ImageIO.read(getClass().getResource("/rbadia/voidspace/graphics/enemy.png"));
-			this.bossImg = ImageIO.read(getClass().getResource("/rbadia/voidspace/graphics/boss.png"));
-		    this.backdropShipImg = ImageIO.read(getClass().getResource("/rbadia/voidspace/graphics/backdropShip.png"));
-			
+			for(int i = 0; i < sprites.length; i++){
+				sprites[i] = readSprite(i);
+			}
 		} catch (Exception e) {
-			JOptionPane.showMessageDialog(null, "The graphic files are either corrupt or missing.",
-					"VoidSpace - Fatal Error", JOptionPane.ERROR_MESSAGE);
-			e.printStackTrace();
-			System.exit(-1);
+			showLoadingError(e);
+		}
+		return sprites;
+	}
+
+	/**
+	 * Returns the number of game images.
+	 * @return the number of images
+	 */
+	public static int getSpriteCount(){
+		return SPRITE_FILES.length;
+	}
+
+	/**
+	 * Returns the file name of a game image.
+	 * @param sprite the index of the image
+	 * @return the file name
+	 */
+	public static String getSpriteFile(int sprite){
+		return SPRITE_FILES[sprite];
+	}
+
+	/**
+	 * Returns the location of a game image.
+	 * @param sprite the index of the image
+	 * @return the location, or null if the image is missing
+	 */
+	public static URL getSpriteUrl(int sprite){
+		return GraphicsManager.class.getResource("/rbadia/voidspace/graphics/" + SPRITE_FILES[sprite]);
+	}
+
+	/**
+	 * Loads and decodes a game image. May be called by any thread.
+	 * @param sprite the index of the image
+	 * @return the image
+	 * @throws IOException if the image is missing or can't be decoded
+	 */
+	public static BufferedImage readSprite(int sprite) throws IOException{
+		URL url = getSpriteUrl(sprite);
+		if(url == null){
+			throw new IOException("Missing image: " + SPRITE_FILES[sprite]);
+		}
+		BufferedImage image = ImageIO.read(url);
+		if(image == null){
+			throw new IOException("Unknown image format: " + SPRITE_FILES[sprite]);
+		}
+		return image;
+	}
+
+	/**
+	 * Loads the game images that can hit each other and builds their collision masks,
+	 * without creating anything to draw them with. May be called by any thread, and
+	 * without a screen.
+	 * @return the collision masks
+	 * @throws IOException if an image is missing or can't be decoded
+	 */
+	public static CollisionMasks readCollisionMasks() throws IOException{
+		BufferedImage[] sprites = new BufferedImage[SPRITE_FILES.length];
+		int[] masked = {SHIP, BULLET, ENEMY_BULLET, ASTEROID, ENEMY, BOSS};
+		for(int sprite : masked){
+			sprites[sprite] = readSprite(sprite);
+		}
+		return createMasks(sprites);
+	}
+
+	/**
+	 * Builds the collision masks of the sprites that can hit each other.
+	 */
+	private static CollisionMasks createMasks(BufferedImage[] sprites){
+		return new CollisionMasks(CollisionMask.fromAlpha(sprites[SHIP]),
+				CollisionMask.fromAlpha(sprites[BULLET]),
+				CollisionMask.fromAlpha(sprites[ENEMY_BULLET]),
+				CollisionMask.fromAlpha(sprites[ASTEROID]),
+				CollisionMask.fromAlpha(sprites[ENEMY]),
+				CollisionMask.fromAlpha(sprites[BOSS]));
+	}
+
+	/**
+	 * Tells the player the game images couldn't be loaded, and exits.
+	 * @param e the error
+	 */
+	public static void showLoadingError(Exception e){
+		JOptionPane.showMessageDialog(null, "The graphic files are either corrupt or missing.",
+				"VoidSpace - Fatal Error", JOptionPane.ERROR_MESSAGE);
+		e.printStackTrace();
+		System.exit(-1);
+	}
+
+	/**
+	 * Returns the collision masks of the sprites that can hit each other.
+	 * @return the collision masks
+	 */
+	public CollisionMasks getCollisionMasks() {
+		return masks;
+	}
+
+	/**
+	 * Sets where to record the regions of the screen drawn on, to redraw only those in the
+	 * next frames.
+	 * @param drawnRegions the regions to add to, or null to stop recording
+	 */
+	public void setDrawnRegions(DirtyRegions drawnRegions) {
+		this.drawnRegions = drawnRegions;
+	}
+
+	/**
+	 * Draws a sprite from the atlas, recording the region drawn on.
+	 */
+	private void draw(int sprite, int x, int y, Graphics2D g2d, ImageObserver observer) {
+		atlas.draw(sprite, x, y, g2d, observer);
+		if(drawnRegions != null){
+			Rectangle region = atlas.getRegion(sprite);
+			drawnRegions.add(x, y, region.width, region.height);
 		}
 	}
 
@@ -62,7 +196,18 @@ public class GraphicsManager {
 	 * @param observer object to be notified
 	 */
 	public void drawShip(Ship ship, Graphics2D g2d, ImageObserver observer) {
-		g2d.drawImage(shipImg, ship.x, ship.y, observer);
+		drawShip(ship.x, ship.y, g2d, observer);
+	}
+
+	/**
+	 * Draws a ship image at the given location to the specified graphics canvas.
+	 * @param x the x coordinate of the ship
+	 * @param y the y coordinate of the ship
+	 * @param g2d the graphics canvas
+	 * @param observer object to be notified
+	 */
+	public void drawShip(int x, int y, Graphics2D g2d, ImageObserver observer) {
+		draw(SHIP, x, y, g2d, observer);
 	}
 	
 	/**
@@ -72,7 +217,18 @@ public class GraphicsManager {
 	 * @param observer object to be notified
 	 */
 	public void drawBossShip(BossShip boss, Graphics2D g2d, ImageObserver observer) {
-		g2d.drawImage(bossImg, boss.x, boss.y, observer);
+		drawBossShip(boss.x, boss.y, g2d, observer);
+	}
+
+	/**
+	 * Draws a boss ship image at the given location to the specified graphic canvas.
+	 * @param x the x coordinate of the boss ship
+	 * @param y the y coordinate of the boss ship
+	 * @param g2d the graphics canvas
+	 * @param observer object to be notified
+	 */
+	public void drawBossShip(int x, int y, Graphics2D g2d, ImageObserver observer) {
+		draw(BOSS, x, y, g2d, observer);
 	}
 	
 	/**
@@ -82,28 +238,41 @@ public class GraphicsManager {
 	 * @param observer object to be notified
 	 */
 	public void drawEnemyShip(EnemyShip enemy, Graphics2D g2d, ImageObserver observer) {
-		g2d.drawImage(enemyImg, enemy.x, enemy.y, observer);
+		drawEnemyShip(enemy.x, enemy.y, g2d, observer);
+	}
+
+	/**
+	 * Draws an enemy ship image at the given location to the specified graphic canvas.
+	 * @param x the x coordinate of the enemy ship
+	 * @param y the y coordinate of the enemy ship
+	 * @param g2d the graphics canvas
+	 * @param observer object to be notified
+	 */
+	public void drawEnemyShip(int x, int y, Graphics2D g2d, ImageObserver observer) {
+		draw(ENEMY, x, y, g2d, observer);
 	}
 
 
 	/**
-	 * Draws a bullet image to the specified graphics canvas.
-	 * @param bullet the bullet to draw
+	 * Draws a bullet image at the given location to the specified graphics canvas.
+	 * @param x the x coordinate of the bullet
+	 * @param y the y coordinate of the bullet
 	 * @param g2d the graphics canvas
 	 * @param observer object to be notified
 	 */
-	public void drawBullet(Bullet bullet, Graphics2D g2d, ImageObserver observer) {
-		g2d.drawImage(bulletImg, bullet.x, bullet.y, observer);
+	public void drawBullet(int x, int y, Graphics2D g2d, ImageObserver observer) {
+		draw(BULLET, x, y, g2d, observer);
 	}
 	
 	/**
-	 * Draws an enemy bullet image to the specified graphics canvas.
-	 * @param bullet the bullet to draw
+	 * Draws an enemy bullet image at the given location to the specified graphics canvas.
+	 * @param x the x coordinate of the bullet
+	 * @param y the y coordinate of the bullet
 	 * @param g2d the graphics canvas
 	 * @param observer object to be notified
 	 */
-	public void drawEnemyBullet(Bullet bullet, Graphics2D g2d, ImageObserver observer) {
-		g2d.drawImage(enemyBulletImg, bullet.x, bullet.y, observer);
+	public void drawEnemyBullet(int x, int y, Graphics2D g2d, ImageObserver observer) {
+		draw(ENEMY_BULLET, x, y, g2d, observer);
 	}
 
 	/**
@@ -113,7 +282,18 @@ public class GraphicsManager {
 	 * @param observer object to be notified
 	 */
 	public void drawAsteroid(Asteroid asteroid, Graphics2D g2d, ImageObserver observer) {
-		g2d.drawImage(asteroidImg, asteroid.x, asteroid.y, observer);
+		drawAsteroid(asteroid.x, asteroid.y, g2d, observer);
+	}
+
+	/**
+	 * Draws an asteroid image at the given location to the specified graphics canvas.
+	 * @param x the x coordinate of the asteroid
+	 * @param y the y coordinate of the asteroid
+	 * @param g2d the graphics canvas
+	 * @param observer object to be notified
+	 */
+	public void drawAsteroid(int x, int y, Graphics2D g2d, ImageObserver observer) {
+		draw(ASTEROID, x, y, g2d, observer);
 	}
 
 	/**
@@ -123,7 +303,18 @@ public class GraphicsManager {
 	 * @param observer object to be notified
 	 */
 	public void drawShipExplosion(Rectangle shipExplosion, Graphics2D g2d, ImageObserver observer) {
-		g2d.drawImage(shipExplosionImg, shipExplosion.x, shipExplosion.y, observer);
+		drawShipExplosion(shipExplosion.x, shipExplosion.y, g2d, observer);
+	}
+
+	/**
+	 * Draws a ship explosion image at the given location to the specified graphics canvas.
+	 * @param x the x coordinate of the explosion
+	 * @param y the y coordinate of the explosion
+	 * @param g2d the graphics canvas
+	 * @param observer object to be notified
+	 */
+	public void drawShipExplosion(int x, int y, Graphics2D g2d, ImageObserver observer) {
+		draw(SHIP_EXPLOSION, x, y, g2d, observer);
 	}
 
 	/**
@@ -133,7 +324,18 @@ public class GraphicsManager {
 	 * @param observer object to be notified
 	 */
 	public void drawAsteroidExplosion(Rectangle asteroidExplosion, Graphics2D g2d, ImageObserver observer) {
-		g2d.drawImage(asteroidExplosionImg, asteroidExplosion.x, asteroidExplosion.y, observer);
+		drawAsteroidExplosion(asteroidExplosion.x, asteroidExplosion.y, g2d, observer);
+	}
+
+	/**
+	 * Draws an asteroid explosion image at the given location to the specified graphics canvas.
+	 * @param x the x coordinate of the explosion
+	 * @param y the y coordinate of the explosion
+	 * @param g2d the graphics canvas
+	 * @param observer object to be notified
+	 */
+	public void drawAsteroidExplosion(int x, int y, Graphics2D g2d, ImageObserver observer) {
+		draw(ASTEROID_EXPLOSION, x, y, g2d, observer);
 	}
 	
 	/**
@@ -143,7 +345,18 @@ public class GraphicsManager {
 	 * @param observer object to be notified
 	 */
 	public void drawBossExplosion(Rectangle bossExplosion, Graphics2D g2d, ImageObserver observer) {
-		g2d.drawImage(bossExplosionImg, bossExplosion.x, bossExplosion.y, observer);
+		drawBossExplosion(bossExplosion.x, bossExplosion.y, g2d, observer);
+	}
+
+	/**
+	 * Draws a boss explosion image at the given location to the specified graphics canvas.
+	 * @param x the x coordinate of the explosion
+	 * @param y the y coordinate of the explosion
+	 * @param g2d the graphics canvas
+	 * @param observer object to be notified
+	 */
+	public void drawBossExplosion(int x, int y, Graphics2D g2d, ImageObserver observer) {
+		draw(BOSS_EXPLOSION, x, y, g2d, observer);
 	}
 	
 	/**
@@ -153,19 +366,38 @@ public class GraphicsManager {
 	 * @param observer object to be notified
 	 */
 	public void drawBossHealthBar(BossShip bossShip, Graphics2D g2d, ImageObserver observer) {
+		drawBossHealthBar(bossShip.x, bossShip.y, bossShip.getBossWidth(), bossShip.getBossHealth(),
+				bossShip.getDefaultHealth(), g2d, observer);
+	}
+
+	/**
+	 * Draws a boss health bar at the given location to the specified graphic canvas.
+	 * @param x the x coordinate of the boss ship
+	 * @param y the y coordinate of the boss ship
+	 * @param width the width of the bar's outer border
+	 * @param health the boss' current health
+	 * @param defaultHealth the boss' full health
+	 * @param g2d the graphic canvas
+	 * @param observer object to be notified
+	 */
+	public void drawBossHealthBar(int x, int y, int width, int health, int defaultHealth,
+			Graphics2D g2d, ImageObserver observer) {
 		// draw outer border
 		g2d.setColor(Color.GRAY);
-		g2d.fillRect(bossShip.x, bossShip.y - 5, bossShip.getBossWidth(), 1);
+		g2d.fillRect(x, y - 5, width, 1);
+		if(drawnRegions != null){
+			drawnRegions.add(x, y - 5, Math.max(width, health), 1);
+		}
 		
 		// draw life bar
-		if (bossShip.getBossHealth() > bossShip.getDefaultHealth()/2)
+		if (health > defaultHealth/2)
 			g2d.setColor(Color.GREEN); 
-		else if (bossShip.getBossHealth() > bossShip.getDefaultHealth()/4)
+		else if (health > defaultHealth/4)
 			g2d.setColor(Color.YELLOW);
 		else
 			g2d.setColor(Color.RED);
 			
-		g2d.fillRect(bossShip.x, bossShip.y - 5, bossShip.getBossHealth(), 1);
+		g2d.fillRect(x, y - 5, health, 1);
 
 	}
 	
@@ -176,7 +408,7 @@ public class GraphicsManager {
 	 * @param observer object to be notified
 	 */
 	 public void drawBackdropShip(Rectangle backdrop, Graphics2D g2d, ImageObserver observer) {
-	        g2d.drawImage(backdropShipImg, backdrop.x, backdrop.y, observer);
+	        draw(BACKDROP_SHIP, backdrop.x, backdrop.y, g2d, observer);
 	    }
 
 	
@@ -0,0 +1,94 @@
+package rbadia.voidspace.main;
+
+import java.io.IOException;
+
+import rbadia.voidspace.graphics.GraphicsManager;
+import rbadia.voidspace.sounds.SoundManager;
+
+/**
+ * Runs the game simulation without a game screen, sound or keyboard, stepping it as
+ * fast as the CPU allows, and reports how many ticks per second were simulated.
+ * A simple autopilot starts a new game whenever the previous one ends and keeps
+ * the ship firing. The time taken by each phase of the ticks is reported at the end
+ * (see {@link FrameStats}).
+ * <p>
+ * Game time is counted in ticks (see {@link TickClock}), so two runs with the same
+ * number of ticks and the same seed end in exactly the same state.
+ * <p>
+ * Usage: <code>HeadlessMain [ticks] [seed]</code>
+ */
+public class HeadlessMain {
+	private static final long DEFAULT_TICKS = 1000000;
+	// fire 5 bullets per second of game time, like a player holding the space bar
+	private static final int FIRE_INTERVAL_TICKS = GameLoop.DEFAULT_TICK_RATE / 5;
+
+	private static final long NANOS_PER_SECOND = 1000000000L;
+
+	/**
+	 * @param args the number of ticks to run for, and the seed for the game's random numbers
+	 */
+	public static void main(String[] args) {
+		long totalTicks = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_TICKS;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+		System.out.println("seed: " + seed);
+
+		GameLogic gameLogic = new GameLogic(new HeadlessPlayfield(), new SoundManager(false),
+				new TickClock(GameLoop.DEFAULT_TICK_RATE),
+				new TickScheduler(GameLoop.DEFAULT_TICK_RATE), new GameRandom(seed));
+		try{
+			gameLogic.setCollisionMasks(GraphicsManager.readCollisionMasks());
+		}
+		catch(IOException e){
+			System.err.println("Could not load the collision masks, objects collide as boxes: " + e.getMessage());
+		}
+		FrameStats frameStats = new FrameStats();
+
+		long startTime = System.nanoTime();
+		long reportTime = startTime + NANOS_PER_SECOND;
+		long reportTicks = 0;
+		for(long tick = 0; tick < totalTicks; tick++){
+			tick(gameLogic, frameStats, tick);
+
+			long currentTime = System.nanoTime();
+			if(currentTime >= reportTime){
+				System.out.println("ticks/second: " + (tick + 1 - reportTicks));
+				reportTicks = tick + 1;
+				reportTime += NANOS_PER_SECOND;
+			}
+		}
+
+		double elapsedSeconds = (double) (System.nanoTime() - startTime) / NANOS_PER_SECOND;
+		GameStatus status = gameLogic.getStatus();
+		System.out.println("ticks: " + totalTicks + " in " + String.format("%.2f", elapsedSeconds) + " s, "
+				+ String.format("%.0f", totalTicks / elapsedSeconds) + " ticks/second");
+		System.out.println("score: " + status.getScore() + ", asteroids destroyed: " + status.getAsteroidsDestroyed()
+				+ ", level: " + status.getLevel() + ", ships left: " + status.getShipsLeft());
+		System.out.println(frameStats.getReport());
+	}
+
+	/**
+	 * Advances the game by one simulation tick, playing it with the autopilot.
+	 */
+	private static void tick(GameLogic gameLogic, FrameStats frameStats, long tick){
+		gameLogic.startTick();
+		long phaseStart = System.nanoTime();
+		gameLogic.checkConditions();
+		phaseStart = frameStats.record(FrameStats.Phase.CONDITIONS, phaseStart);
+		gameLogic.moveObjects();
+		phaseStart = frameStats.record(FrameStats.Phase.MOVE, phaseStart);
+
+		// the autopilot plays where the keyboard would, before the collisions
+		GameStatus status = gameLogic.getStatus();
+		if(!status.isGameStarted() && !status.isGameStarting() && !status.isGameOver() && !status.isGameWon()){
+			gameLogic.newGame();
+		}
+		else if(status.isGameStarted() && !status.isNewShip() && tick % FIRE_INTERVAL_TICKS == 0){
+			gameLogic.fireBullet();
+		}
+		phaseStart = frameStats.record(FrameStats.Phase.INPUT, phaseStart);
+
+		gameLogic.checkCollisions();
+		frameStats.record(FrameStats.Phase.COLLIDE, phaseStart);
+		gameLogic.endTick();
+	}
+}
@@ -0,0 +1,36 @@
+package rbadia.voidspace.main;
+
+import rbadia.voidspace.model.Playfield;
+
+/**
+ * A playfield of fixed dimensions, for running the game without a game screen.
+ */
+public class HeadlessPlayfield implements Playfield {
+	private final int width;
+	private final int height;
+
+	/**
+	 * Creates a playfield the size of the game screen.
+	 */
+	public HeadlessPlayfield() {
+		this(800, 600);
+	}
+
+	/**
+	 * Creates a playfield of the given size.
+	 * @param width the width in pixels
+	 * @param height the height in pixels
+	 */
+	public HeadlessPlayfield(int width, int height) {
+		this.width = width;
+		this.height = height;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+}
@@ -0,0 +1,199 @@
+package rbadia.voidspace.graphics;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The status line drawn at the top of the game screen: ships left, asteroids destroyed,
+ * score and level.
+ * <p>
+ * The line is kept in an image of its own, so a frame draws it with a single blit. The
+ * labels are drawn into the image once; a value is only drawn again when it or its color
+ * changes, digit by digit, from a strip of the ten digits drawn once per color. Updating
+ * the status line never allocates strings nor touches Swing components.
+ */
+public class Hud {
+	/** The ships left field. */
+	public static final int SHIPS = 0;
+	/** The asteroids destroyed field. */
+	public static final int DESTROYED = 1;
+	/** The score field. */
+	public static final int SCORE = 2;
+	/** The level field. */
+	public static final int LEVEL = 3;
+
+	private static final String[] LABELS = {"Ships Left: ", "Asteroids Destroyed: ", "Score: ", "LEVEL "};
+	private static final Color LABEL_COLOR = new Color(0xb666d2);
+
+	// room for the digits of a long
+	private static final int MAX_DIGITS = 19;
+	private static final int MARGIN = 2;
+
+	private final Font font;
+	private final GraphicsConfiguration config;
+	private final int digitWidth;
+	private final int ascent;
+	private final int height;
+
+	private final long[] values = {3, 0, 0, 1};
+	private final Color[] colors = {Color.WHITE, Color.WHITE, Color.WHITE, Color.WHITE};
+	// where the value of each field starts and where its column ends
+	private final int[] valueX = new int[LABELS.length];
+	private final int[] columnEnd = new int[LABELS.length];
+	// value and color each field was last drawn with
+	private final long[] drawnValues = new long[LABELS.length];
+	private final Color[] drawnColors = new Color[LABELS.length];
+
+	private final Map<Color, BufferedImage> digitStrips = new HashMap<Color, BufferedImage>();
+	private final char[] digits = new char[MAX_DIGITS];
+	private int width;
+	private BufferedImage image;
+	private Graphics2D imageGraphics;
+
+	/**
+	 * Creates a new status line for the default screen.
+	 * @param font the font of the labels and values
+	 */
+	public Hud(Font font) {
+		this.font = font;
+		this.config = SpriteAtlas.getDefaultConfiguration();
+		TextImage digitText = new TextImage("0", font, Color.WHITE, config);
+		int widest = 0;
+		for(char c = '0'; c <= '9'; c++){
+			widest = Math.max(widest, new TextImage(String.valueOf(c), font, Color.WHITE, config).getWidth());
+		}
+		this.digitWidth = widest;
+		this.ascent = digitText.getAscent();
+		this.height = digitText.getHeight() + MARGIN;
+	}
+
+	/**
+	 * Sets the value of a field.
+	 * @param field the field, one of {@link #SHIPS}, {@link #DESTROYED}, {@link #SCORE} and {@link #LEVEL}
+	 * @param value the value, not negative
+	 */
+	public void setValue(int field, long value) {
+		values[field] = Math.max(0, value);
+	}
+
+	/**
+	 * Sets the color of the value of a field.
+	 * @param field the field, one of {@link #SHIPS}, {@link #DESTROYED}, {@link #SCORE} and {@link #LEVEL}
+	 * @param color the color
+	 */
+	public void setColor(int field, Color color) {
+		colors[field] = color;
+	}
+
+	/**
+	 * Returns the height of the status line.
+	 * @return the height in pixels
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Draws the status line at the top of the screen, drawing again the values that changed.
+	 * @param g2d the graphics canvas
+	 * @param width the width of the screen
+	 */
+	public void draw(Graphics2D g2d, int width) {
+		if(image == null || this.width != width){
+			layOut(width);
+		}
+		for(int field = 0; field < LABELS.length; field++){
+			if(values[field] != drawnValues[field] || colors[field] != drawnColors[field]){
+				drawValue(field);
+			}
+		}
+		g2d.drawImage(image, 0, 0, null);
+	}
+
+	/**
+	 * Creates the image of the status line for a width of the screen and draws the labels,
+	 * in four columns of equal width.
+	 */
+	private void layOut(int width) {
+		this.width = Math.max(1, width);
+		if(imageGraphics != null){
+			imageGraphics.dispose();
+		}
+		if(config == null){
+			image = new BufferedImage(this.width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+		}
+		else{
+			image = config.createCompatibleImage(this.width, height, Transparency.BITMASK);
+		}
+		imageGraphics = image.createGraphics();
+		int column = this.width / LABELS.length;
+		for(int field = 0; field < LABELS.length; field++){
+			TextImage label = new TextImage(LABELS[field], font, LABEL_COLOR, config);
+			int x = field * column + MARGIN;
+			label.draw(x, MARGIN + ascent, imageGraphics);
+			valueX[field] = x + label.getWidth();
+			columnEnd[field] = (field + 1) * column;
+			drawValue(field);
+		}
+	}
+
+	/**
+	 * Erases the value of a field and draws its digits from the strip of its color.
+	 */
+	private void drawValue(int field) {
+		long value = values[field];
+		Color color = colors[field];
+		int x = valueX[field];
+
+		Composite composite = imageGraphics.getComposite();
+		imageGraphics.setComposite(AlphaComposite.Clear);
+		imageGraphics.fillRect(x, 0, columnEnd[field] - x, height);
+		imageGraphics.setComposite(composite);
+
+		// digits from last to first
+		int count = 0;
+		do{
+			digits[count++] = (char) ('0' + value % 10);
+			value /= 10;
+		} while(value > 0);
+		BufferedImage strip = getDigitStrip(color);
+		for(int i = count - 1; i >= 0 && x + digitWidth <= columnEnd[field]; i--){
+			int sx = (digits[i] - '0') * digitWidth;
+			imageGraphics.drawImage(strip, x, 0, x + digitWidth, height, sx, 0, sx + digitWidth, height, null);
+			x += digitWidth;
+		}
+
+		drawnValues[field] = values[field];
+		drawnColors[field] = color;
+	}
+
+	/**
+	 * Returns the strip of the ten digits in a color, drawing it the first time.
+	 */
+	private BufferedImage getDigitStrip(Color color) {
+		BufferedImage strip = digitStrips.get(color);
+		if(strip == null){
+			if(config == null){
+				strip = new BufferedImage(10 * digitWidth, height, BufferedImage.TYPE_INT_ARGB_PRE);
+			}
+			else{
+				strip = config.createCompatibleImage(10 * digitWidth, height, Transparency.BITMASK);
+			}
+			Graphics2D g2d = strip.createGraphics();
+			for(int d = 0; d < 10; d++){
+				new TextImage(String.valueOf(d), font, color, config).draw(d * digitWidth, MARGIN + ascent, g2d);
+			}
+			g2d.dispose();
+			digitStrips.put(color, strip);
+		}
+		return strip;
+	}
+}
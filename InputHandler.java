@@ -3,6 +3,7 @@ package rbadia.voidspace.main;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 
+import rbadia.voidspace.model.Playfield;
 import rbadia.voidspace.model.Ship;
 
 /**
@@ -15,6 +16,8 @@ public class InputHandler implements KeyListener{
 	private boolean upIsPressed;
 	private boolean spaceIsPressed;
 	private boolean shiftIsPressed;
+	// set by the event dispatch thread, the game is started by the simulation thread
+	private volatile boolean newGameRequested;
 	
 	private long lastBulletTime;
 	
@@ -29,16 +32,24 @@ public class InputHandler implements KeyListener{
 	}
 	
 	/**
-	 * Handle user input after screen update.
-	 * @param gameScreen he game screen
+	 * Handle user input, after the game objects move and before the collisions are checked,
+	 * so that the ship's move is part of the tick's swept collision checks.
+	 * @param playfield the playfield
 	 */
-	public void handleInput(GameScreen gameScreen){
+	public void handleInput(Playfield playfield){
+		if(newGameRequested){
+			newGameRequested = false;
+			lastBulletTime = gameLogic.getClock().currentTimeMillis();
+			gameLogic.newGame();
+			return;
+		}
+
 		GameStatus status = gameLogic.getStatus();
 		if(!status.isGameOver() && !status.isNewShip() && !status.isGameStarting() && !status.isGameWon()) {
 			// fire bullet if space is pressed
 			if(spaceIsPressed){
 				// fire only up to 5 bullets per second
-				long currentTime = System.currentTimeMillis();
+				long currentTime = gameLogic.getClock().currentTimeMillis();
 				if((currentTime - lastBulletTime) > 1000/5){
 					lastBulletTime = currentTime;
 					gameLogic.fireBullet();
@@ -56,7 +67,7 @@ public class InputHandler implements KeyListener{
 			}
 
 			if(downIsPressed  && (ship != null)){
-				moveShipDown(ship, gameScreen.getHeight());
+				moveShipDown(ship, playfield.getHeight());
 			}
 
 			if(leftIsPressed  && (ship != null)){
@@ -64,7 +75,7 @@ public class InputHandler implements KeyListener{
 			}
 
 			if(rightIsPressed  && (ship != null)){
-				moveShipRight(ship, gameScreen.getWidth());
+				moveShipRight(ship, playfield.getWidth());
 			}
 		}
 	}
@@ -130,14 +141,13 @@ public class InputHandler implements KeyListener{
 			GameStatus status = gameLogic.getStatus();
 			if(!status.isGameStarted() && !status.isGameOver() && !status.isGameStarting() && !status.isGameWon()){
 				// new game
-				lastBulletTime = System.currentTimeMillis();
 				leftIsPressed = false;
 				rightIsPressed = false;
 				downIsPressed = false;
 				upIsPressed = false;
 				spaceIsPressed = false;
 				
-				gameLogic.newGame();
+				newGameRequested = true;
 			}
 			else{
 				this.spaceIsPressed = true;
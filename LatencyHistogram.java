@@ -0,0 +1,131 @@
+package rbadia.voidspace.main;
+
+/**
+ * Histogram of durations in nanoseconds, for measuring how long a phase of the game
+ * loop takes. Recording a value only increments a counter in a fixed array, so it
+ * allocates nothing and is cheap enough to leave on while playing.
+ * <p>
+ * Values are counted in buckets: exact below 16 ns, and 16 buckets per power of two
+ * above, so percentiles are accurate to within 1/16 (about 6%) of the value.
+ * <p>
+ * Only one thread may record into a histogram. Other threads may read it at any time,
+ * but may see the counts of the last few values missing.
+ */
+public class LatencyHistogram {
+	// number of buckets per power of two, as a power of two itself
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final String name;
+	private final long[] counts = new long[BUCKETS];
+	private long count;
+	private long max;
+
+	/**
+	 * Creates a new empty histogram.
+	 * @param name the name of the measured phase, used in reports
+	 */
+	public LatencyHistogram(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Returns the name of the measured phase.
+	 * @return the name of the histogram
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Records a duration. Negative durations are counted as zero.
+	 * @param nanos the duration in nanoseconds
+	 */
+	public void record(long nanos) {
+		if(nanos < 0){
+			nanos = 0;
+		}
+		counts[bucketOf(nanos)]++;
+		count++;
+		if(nanos > max){
+			max = nanos;
+		}
+	}
+
+	/**
+	 * Returns the number of recorded durations.
+	 * @return the number of recorded durations
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the longest recorded duration.
+	 * @return the longest duration in nanoseconds, or 0 if nothing was recorded
+	 */
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * Returns the duration below which the given fraction of the recorded durations fall.
+	 * @param fraction the fraction of durations, between 0 and 1 (e.g. 0.99 for the 99th percentile)
+	 * @return the percentile in nanoseconds, or 0 if nothing was recorded
+	 */
+	public long getPercentile(double fraction) {
+		long total = count;
+		if(total == 0){
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(fraction * total));
+		long seen = 0;
+		for(int i = 0; i < BUCKETS; i++){
+			seen += counts[i];
+			if(seen >= rank){
+				return Math.min(highestValueOf(i), max);
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Forgets all the recorded durations. Only the recording thread may call this.
+	 */
+	public void reset() {
+		for(int i = 0; i < BUCKETS; i++){
+			counts[i] = 0;
+		}
+		count = 0;
+		max = 0;
+	}
+
+	/**
+	 * Returns a one line summary of the histogram, with durations in microseconds.
+	 */
+	public String toString() {
+		return String.format("%-10s count=%-10d p50=%9.1f us  p99=%9.1f us  p99.9=%9.1f us  max=%9.1f us",
+				name, count, getPercentile(0.5) / 1000.0, getPercentile(0.99) / 1000.0,
+				getPercentile(0.999) / 1000.0, max / 1000.0);
+	}
+
+	private static int bucketOf(long nanos) {
+		if(nanos < SUB_BUCKETS){
+			return (int) nanos;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	private static long highestValueOf(int bucket) {
+		if(bucket < SUB_BUCKETS){
+			return bucket;
+		}
+		int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long subBucket = bucket % SUB_BUCKETS;
+		long lowest = (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+		return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+}
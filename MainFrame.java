@@ -7,12 +7,11 @@ import java.awt.Insets;
 import java.awt.Rectangle;
 
 import javax.swing.JFrame;
-import javax.swing.JLabel;
 import javax.swing.JPanel;
 
 
 /**
- * The game's main frame. Contains all the game's labels, file menu, and game screen.
+ * The game's main frame. Contains the game screen, which draws its own status line.
  */
 public class MainFrame extends JFrame {
 	private static final long serialVersionUID = 1L;
@@ -21,18 +20,6 @@ public class MainFrame extends JFrame {
 
 	private GameScreen gameScreen = null;
 	
-	private JLabel destroyedLabel;
-	private JLabel destroyedValueLabel;
-
-	private JLabel shipsLabel;
-	private JLabel shipsValueLabel;
-	
-	private JLabel pointsLabel;
-	private JLabel pointsValueLabel;
-	
-	private JLabel levelLabel;
-	private JLabel levelNumber;
-	
 	/**
 	 * This is the default constructor
 	 */
@@ -66,81 +53,16 @@ public class MainFrame extends JFrame {
 	 */
 	private JPanel getJContentPane() {
 		if (jContentPane == null) {
-			GridBagConstraints gridBagConstraints8 = new GridBagConstraints();
-			gridBagConstraints8.insets = new Insets(0, 0, 0, 0);
-			gridBagConstraints8.gridy = 1;
-			gridBagConstraints8.anchor = GridBagConstraints.WEST;
-			gridBagConstraints8.weightx = 1.0D;
-			gridBagConstraints8.gridx = 7;
-			GridBagConstraints gridBagConstraints7 = new GridBagConstraints();
-			gridBagConstraints7.insets = new Insets(0, 0, 0, 0);
-			gridBagConstraints7.gridy = 1;
-			gridBagConstraints7.anchor = GridBagConstraints.EAST;
-			gridBagConstraints7.weightx = 1.0D;
-			gridBagConstraints7.gridx = 6;
-			GridBagConstraints gridBagConstraints6 = new GridBagConstraints();
-			gridBagConstraints6.insets = new Insets(0, 0, 0, 0);
-			gridBagConstraints6.gridy = 1;
-			gridBagConstraints6.anchor = GridBagConstraints.WEST;
-			gridBagConstraints6.weightx = 1.0D;
-			gridBagConstraints6.gridx = 5;
-			GridBagConstraints gridBagConstraints5 = new GridBagConstraints();
-			gridBagConstraints5.insets = new Insets(0, 0, 0, 0);
-			gridBagConstraints5.gridy = 1;
-			gridBagConstraints5.anchor = GridBagConstraints.EAST;
-			gridBagConstraints5.weightx = 1.0D;
-			gridBagConstraints5.gridx = 4;
-			GridBagConstraints gridBagConstraints4 = new GridBagConstraints();
-			gridBagConstraints4.insets = new Insets(0, 0, 0, 0);
-			gridBagConstraints4.gridy = 1;
-			gridBagConstraints4.anchor = GridBagConstraints.WEST;
-			gridBagConstraints4.weightx = 1.0D;
-			gridBagConstraints4.gridx = 3;
-			GridBagConstraints gridBagConstraints3 = new GridBagConstraints();
-			gridBagConstraints3.insets = new Insets(0, 0, 0, 0);
-			gridBagConstraints3.gridy = 1;
-			gridBagConstraints3.anchor = GridBagConstraints.EAST;
-			gridBagConstraints3.weightx = 1.0D;
-			gridBagConstraints3.gridx = 2;
-			GridBagConstraints gridBagConstraints2 = new GridBagConstraints();
-			gridBagConstraints2.insets = new Insets(0, 0, 0, 0);
-			gridBagConstraints2.gridy = 1;
-			gridBagConstraints2.anchor = GridBagConstraints.WEST;
-			gridBagConstraints2.weightx = 1.0D;
-			gridBagConstraints2.gridx = 1;
-			GridBagConstraints gridBagConstraints1 = new GridBagConstraints();
-			gridBagConstraints1.insets = new Insets(0, 0, 0, 0);
-			gridBagConstraints1.gridy = 1;
-			gridBagConstraints1.anchor = GridBagConstraints.EAST;
-			gridBagConstraints1.weightx = 1.0D;
-			gridBagConstraints1.gridx = 0;
 			GridBagConstraints gridBagConstraints = new GridBagConstraints();
 			gridBagConstraints.insets = new Insets(0, 0, 0, 0);
 			gridBagConstraints.gridx = 0;
 			gridBagConstraints.gridy = 0;
 			gridBagConstraints.fill = GridBagConstraints.NONE;
 			gridBagConstraints.gridwidth = 8;
-			shipsLabel = new JLabel("Ships Left: ");
-			shipsValueLabel = new JLabel("3");
-			destroyedLabel = new JLabel("Asteroids Destroyed: ");
-			destroyedValueLabel = new JLabel("0");
-			pointsLabel = new JLabel("Score: ");	
-			pointsValueLabel = new JLabel("0");	
-			levelLabel = new JLabel("LEVEL ");	
-			levelNumber = new JLabel("1");	
 			jContentPane = new JPanel();
 			jContentPane.setLayout(new GridBagLayout());
 			jContentPane.setBackground(new Color(0xb666d2));
 			jContentPane.add(getGameScreen(), gridBagConstraints);
-			jContentPane.add(shipsLabel, gridBagConstraints1);
-			jContentPane.add(shipsValueLabel, gridBagConstraints2);
-			jContentPane.add(destroyedLabel, gridBagConstraints3);
-			jContentPane.add(destroyedValueLabel, gridBagConstraints4);
-			jContentPane.add(pointsLabel, gridBagConstraints5);	
-			jContentPane.add(pointsValueLabel, gridBagConstraints6); 
-			jContentPane.add(levelLabel, gridBagConstraints7);	
-			jContentPane.add(levelNumber, gridBagConstraints8); 
-
 		}
 		return jContentPane;
 	}
@@ -153,10 +75,6 @@ public class MainFrame extends JFrame {
 	public GameScreen getGameScreen() {
 		if (gameScreen == null) {
 			gameScreen = new GameScreen();
-			gameScreen.setShipsValueLabel(shipsValueLabel);
-			gameScreen.setDestroyedValueLabel(destroyedValueLabel);
-			gameScreen.setPointsValueLabel(pointsValueLabel);
-			gameScreen.setLevelNumberLabel(levelNumber); 
 		}
 		return gameScreen;
 	}
@@ -0,0 +1,216 @@
+package rbadia.voidspace.sounds;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Streams a music track, over and over, to an audio line of its own.
+ * <p>
+ * The track is never held in memory as a whole: a thread reads it in small chunks into a
+ * ring buffer of fixed size, and writes from the ring to the line as fast as the line takes
+ * it, so the music costs the same memory however long the track is. When the track ends,
+ * it is opened again and read on into the ring while the line still plays the end, so the
+ * loop has no gap. Playing the music while it plays starts it over instead of adding a
+ * second copy. The thread owns the stream, the ring and the line; other threads only ask
+ * it to play or stop.
+ */
+public class MusicPlayer {
+	// bytes read from the track at a time, and held by the ring and by the line
+	private static final int CHUNK_BYTES = 4096;
+	private static final int RING_BYTES = 8 * CHUNK_BYTES;
+	private static final int LINE_BYTES = 4 * CHUNK_BYTES;
+	// how long the thread waits when the line is full or the music is stopped, in nanoseconds
+	private static final long IDLE_NANOS = 10000000;
+
+	private final URL url;
+	private final AudioFormat format;
+	private SourceDataLine line;
+	private Thread thread;
+
+	// asked for by other threads: whether the music plays, and a count of the starts asked for
+	private volatile boolean playing;
+	private final AtomicInteger starts = new AtomicInteger();
+
+	// only used by the music thread
+	private AudioInputStream stream;
+	private final byte[] chunk = new byte[CHUNK_BYTES];
+	private final byte[] ring = new byte[RING_BYTES];
+	private int ringStart;
+	private int ringSize;
+	private int startsDone;
+
+	/**
+	 * Creates a music player, reading the track's format.
+	 * @param url the location of the track
+	 * @throws IOException if the track can't be read
+	 * @throws UnsupportedAudioFileException if the track is not in a known audio format
+	 */
+	public MusicPlayer(URL url) throws IOException, UnsupportedAudioFileException {
+		this.url = url;
+		AudioInputStream in = open();
+		this.format = in.getFormat();
+		in.close();
+	}
+
+	/**
+	 * Opens the track from the start, as 16 bit signed samples.
+	 */
+	private AudioInputStream open() throws IOException, UnsupportedAudioFileException {
+		AudioInputStream in = AudioSystem.getAudioInputStream(url);
+		AudioFormat source = in.getFormat();
+		if(source.getEncoding() == AudioFormat.Encoding.PCM_SIGNED && source.getSampleSizeInBits() == 16){
+			return in;
+		}
+		AudioFormat pcm = new AudioFormat(source.getSampleRate(), 16, source.getChannels(), true, false);
+		return AudioSystem.getAudioInputStream(pcm, in);
+	}
+
+	/**
+	 * Opens the audio line and starts the music thread. The music doesn't play until
+	 * {@link #play()} is called.
+	 * @return true if the player is ready, false if there is no audio line to play on,
+	 * in which case the music is never played
+	 */
+	public boolean start() {
+		try{
+			line = AudioSystem.getSourceDataLine(format);
+			line.open(format, LINE_BYTES - LINE_BYTES % format.getFrameSize());
+			line.start();
+		}
+		catch(LineUnavailableException e){
+			line = null;
+			return false;
+		}
+		catch(IllegalArgumentException e){
+			// no line supports the format, or there is no audio device at all
+			line = null;
+			return false;
+		}
+		thread = new Thread(new Runnable(){
+			public void run() {
+				stream();
+			}
+		}, "Music");
+		thread.setDaemon(true);
+		thread.start();
+		return true;
+	}
+
+	/**
+	 * Plays the music from the start, looping it. May be called by any thread.
+	 */
+	public void play() {
+		playing = true;
+		starts.incrementAndGet();
+		if(thread != null){
+			LockSupport.unpark(thread);
+		}
+	}
+
+	/**
+	 * Stops the music. May be called by any thread.
+	 */
+	public void stop() {
+		playing = false;
+		if(thread != null){
+			LockSupport.unpark(thread);
+		}
+	}
+
+	/**
+	 * Runs the music thread: reads the track into the ring and writes the ring to the line.
+	 */
+	private void stream() {
+		while(true){
+			// start over, dropping what was read of the track and not played yet
+			int startsAsked = starts.get();
+			if(startsAsked != startsDone || !playing && stream != null){
+				close();
+				ringSize = 0;
+				line.flush();
+				startsDone = startsAsked;
+			}
+			if(!playing){
+				LockSupport.parkNanos(IDLE_NANOS);
+				continue;
+			}
+
+			fill();
+
+			// write what the line takes without waiting
+			int frameSize = format.getFrameSize();
+			int length = Math.min(Math.min(ringSize, RING_BYTES - ringStart), line.available());
+			length -= length % frameSize;
+			if(length > 0){
+				line.write(ring, ringStart, length);
+				ringStart = (ringStart + length) % RING_BYTES;
+				ringSize -= length;
+			}
+			else{
+				LockSupport.parkNanos(IDLE_NANOS);
+			}
+		}
+	}
+
+	/**
+	 * Reads the track into the ring while there is room for a chunk, from the start again
+	 * when it ends.
+	 */
+	private void fill() {
+		try{
+			boolean restarted = false;
+			while(RING_BYTES - ringSize >= CHUNK_BYTES){
+				if(stream == null){
+					stream = open();
+				}
+				int read = stream.read(chunk, 0, CHUNK_BYTES - CHUNK_BYTES % format.getFrameSize());
+				if(read < 0){
+					close();
+					if(restarted){
+						// an empty track
+						return;
+					}
+					restarted = true;
+					continue;
+				}
+				restarted = false;
+				int end = (ringStart + ringSize) % RING_BYTES;
+				int first = Math.min(read, RING_BYTES - end);
+				System.arraycopy(chunk, 0, ring, end, first);
+				System.arraycopy(chunk, first, ring, 0, read - first);
+				ringSize += read;
+			}
+		}
+		catch(IOException e){
+			System.err.println("Could not read music track " + url + ": " + e);
+			close();
+			playing = false;
+		}
+		catch(UnsupportedAudioFileException e){
+			System.err.println("Could not read music track " + url + ": " + e);
+			close();
+			playing = false;
+		}
+	}
+
+	private void close() {
+		if(stream != null){
+			try{
+				stream.close();
+			}
+			catch(IOException e){
+				// nothing left to read from it anyway
+			}
+			stream = null;
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package rbadia.voidspace.model;
+
+/**
+ * The area the game is played in. Only its dimensions matter to the game objects,
+ * so the game can be simulated with or without a game screen to draw it on.
+ */
+public interface Playfield {
+
+	/**
+	 * Returns the width of the playfield.
+	 * @return the width in pixels
+	 */
+	int getWidth();
+
+	/**
+	 * Returns the height of the playfield.
+	 * @return the height in pixels
+	 */
+	int getHeight();
+}
@@ -0,0 +1,87 @@
+package rbadia.voidspace.main;
+
+/**
+ * Implements the render loop, run by its own thread next to the simulation's {@link GameLoop}.
+ * Draws the latest published {@link WorldSnapshot} at the pace set by a {@link FramePacer},
+ * interpolating the objects' locations between simulation ticks.
+ */
+public class RenderLoop implements Runnable {
+	// the simulation is falling behind when its latest snapshot is older than this many ticks
+	private static final int MAX_SNAPSHOT_AGE_TICKS = 2;
+
+	private GameScreen gameScreen;
+	private TripleBuffer<WorldSnapshot> snapshots;
+	private FramePacer framePacer;
+
+	private final long tickNanos;
+
+	private FrameStats frameStats = new FrameStats();
+
+	/**
+	 * Creates a new render loop.
+	 * @param gameScreen the game screen
+	 * @param snapshots where the simulation publishes its snapshots
+	 * @param tickNanos the length of a simulation tick in nanoseconds
+	 * @param framePacer decides when frames are drawn and which ones are skipped
+	 */
+	public RenderLoop(GameScreen gameScreen, TripleBuffer<WorldSnapshot> snapshots, long tickNanos,
+			FramePacer framePacer){
+		if(tickNanos < 1){
+			throw new IllegalArgumentException("Invalid render loop tick length: tickNanos=" + tickNanos);
+		}
+		this.gameScreen = gameScreen;
+		this.snapshots = snapshots;
+		this.tickNanos = tickNanos;
+		this.framePacer = framePacer;
+	}
+
+	/**
+	 * Returns the timings of the drawing phases.
+	 * @return the frame stats
+	 */
+	public FrameStats getFrameStats() {
+		return frameStats;
+	}
+
+	/**
+	 * Sets where to record the timings of the drawing phases.
+	 * Must be called before the loop starts running.
+	 * @param frameStats the frame stats
+	 */
+	public void setFrameStats(FrameStats frameStats) {
+		this.frameStats = frameStats;
+	}
+
+	/**
+	 * Returns the pacer of the frames, with the counts of frames drawn and skipped.
+	 * @return the frame pacer
+	 */
+	public FramePacer getFramePacer() {
+		return framePacer;
+	}
+
+	/**
+	 * Implements the run interface method. Should be called by the running thread.
+	 */
+	public void run() {
+		while(true){
+			long frameStart = framePacer.waitForNextFrame();
+
+			// leave the CPU to the simulation if it is falling behind, or if this frame is already late
+			WorldSnapshot snapshot = snapshots.acquire();
+			boolean simulationBehind = frameStart - snapshot.getTickTime() > MAX_SNAPSHOT_AGE_TICKS * tickNanos;
+			if(framePacer.skipFrame(frameStart, simulationBehind)){
+				continue;
+			}
+
+			// draw the latest snapshot, in between its tick and the previous one
+			float alpha = (float) (frameStart - snapshot.getTickTime()) / tickNanos;
+			gameScreen.renderScreen(snapshot, Math.max(0, Math.min(1, alpha)));
+			long presentStart = frameStats.record(FrameStats.Phase.DRAW, frameStart);
+
+			// show the graphics on screen
+			gameScreen.presentScreen();
+			frameStats.record(FrameStats.Phase.PRESENT, presentStart);
+		}
+	}
+}
@@ -1,14 +1,10 @@
 package rbadia.voidspace.model;
 
-import java.awt.Rectangle;
-
-import rbadia.voidspace.main.GameScreen;
-
 /**
  * Represents a ship/space craft.
  *
  */
-public class Ship extends Rectangle {
+public class Ship extends GameObject {
 	private static final long serialVersionUID = 1L;
 	
 	public static final int DEFAULT_SPEED = 5;
@@ -20,12 +16,13 @@ public class Ship extends Rectangle {
 	
 	/**
 	 * Creates a new ship at the default initial location. 
-	 * @param screen the game screen
+	 * @param playfield the playfield
 	 */
-	public Ship(GameScreen screen){
-		this.setLocation((screen.getWidth() - shipWidth)/2,
-				screen.getHeight() - shipHeight - Y_OFFSET);
+	public Ship(Playfield playfield){
+		this.setLocation((playfield.getWidth() - shipWidth)/2,
+				playfield.getHeight() - shipHeight - Y_OFFSET);
 		this.setSize(shipWidth, shipHeight);
+		this.savePosition();
 	}
 	
 	/**
@@ -1,73 +1,218 @@
 package rbadia.voidspace.sounds;
 
-import java.applet.Applet;
-import java.applet.AudioClip;
+import java.io.IOException;
+import java.net.URL;
 
-import rbadia.voidspace.main.GameScreen;
+import javax.sound.sampled.UnsupportedAudioFileException;
 
 /**
- * Manages and plays the game's sounds.
+ * Manages and plays the game's sounds, through an {@link AudioEngine}. The music is
+ * streamed by a {@link MusicPlayer}.
+ * <p>
+ * Sound effects asked for during a simulation tick are only collected, and played together
+ * by {@link #playRequestedSounds()} at the end of the tick: however many times a sound was
+ * asked for, it is played once, and not at all if it was already played less than a merge
+ * window ago. The engine also limits how many copies of each sound play at the same time.
+ * Playing a sound then only queues a command for the engine's mixer thread, so the audio
+ * work of a tick stays the same however many collisions happen in it. Sound effects must
+ * be asked for from the simulation thread.
  */
 public class SoundManager {
-	private static final boolean SOUND_ON = true;
+	// the sound effects, and the voices each may play on at the same time
+	private static final int BULLET = 0;
+	private static final int EXPLOSION = 1;
+	private static final int[] MAX_VOICES = {3, 2};
+	private static final String[] SOUND_FILES = {"laser.wav", "shipExplosion.wav"};
 
-    private AudioClip shipExplosionSound = Applet.newAudioClip(GameScreen.class.getResource(
-    "/rbadia/voidspace/sounds/shipExplosion.wav"));
-    private AudioClip bulletSound = Applet.newAudioClip(GameScreen.class.getResource(
-    "/rbadia/voidspace/sounds/laser.wav"));
-    private AudioClip arcadeFunk = Applet.newAudioClip(GameScreen.class.getResource(
-    "/rbadia/voidspace/sounds/arcadeFunk.wav"));
+	// requests of the same sound closer together than this are played once
+	private static final long MERGE_WINDOW_NANOS = 50000000;
 
+	private final boolean soundOn;
+
+    private AudioEngine engine;
+    // engine id of each sound effect, or -1 if it isn't loaded
+    private final int[] sounds = {-1, -1};
+    private MusicPlayer arcadeFunk;
+
+    // sound effects asked for during the current tick, and when each was last played
+    private final boolean[] requested = new boolean[sounds.length];
+    private final long[] lastPlayed = new long[sounds.length];
 
     /**
-     * Plays sound for bullets fired by the ship.
+     * Creates a new sound manager and loads the game sounds.
      */
-    public void playBulletSound(){
-    	if(SOUND_ON){
-    		new Thread(new Runnable(){
-    			public void run() {
-    				bulletSound.play();
+    public SoundManager(){
+    	this(true);
+    }
+
+    /**
+     * Creates a new sound manager.
+     * @param soundOn if sounds should be played; when off no sound is even loaded,
+     * which allows running the game without an audio device
+     */
+    public SoundManager(boolean soundOn){
+    	this(soundOn, soundOn ? readSounds() : null);
+    }
+
+    /**
+     * Creates a new sound manager from sound effects already decoded.
+     * @param samples the samples of each sound effect, in the order of {@link #getSoundFile(int)};
+     * the effects that couldn't be loaded are null and won't be played
+     */
+    public SoundManager(short[][] samples){
+    	this(true, samples);
+    }
+
+    private SoundManager(boolean soundOn, short[][] samples){
+    	this.soundOn = soundOn;
+    	if(soundOn){
+    		engine = new AudioEngine();
+    		for(int sound = 0; sound < sounds.length; sound++){
+    			if(samples[sound] != null){
+    				sounds[sound] = engine.add(samples[sound]);
+    				engine.setMaxVoices(sounds[sound], MAX_VOICES[sound]);
     			}
-    		}).start();
+    			lastPlayed[sound] = System.nanoTime() - MERGE_WINDOW_NANOS;
+    		}
+    		if(!engine.start()){
+    			System.err.println("No audio line available, the game will be silent");
+    		}
+    		arcadeFunk = loadMusic("arcadeFunk.wav");
+    	}
+    }
+
+    /**
+     * Loads all the sound effects, one after the other.
+     */
+    private static short[][] readSounds(){
+    	short[][] samples = new short[SOUND_FILES.length][];
+    	for(int sound = 0; sound < samples.length; sound++){
+    		try{
+    			samples[sound] = readSound(sound);
+    		}
+    		catch(Exception e){
+    			System.err.println("Could not load sound file " + SOUND_FILES[sound] + ": " + e);
+    		}
+    	}
+    	return samples;
+    }
+
+    /**
+     * Returns the number of sound effects.
+     * @return the number of sound effects
+     */
+    public static int getSoundCount(){
+    	return SOUND_FILES.length;
+    }
+
+    /**
+     * Returns the file name of a sound effect.
+     * @param sound the index of the sound effect
+     * @return the file name
+     */
+    public static String getSoundFile(int sound){
+    	return SOUND_FILES[sound];
+    }
+
+    /**
+     * Returns the location of a sound effect.
+     * @param sound the index of the sound effect
+     * @return the location, or null if the file is missing
+     */
+    public static URL getSoundUrl(int sound){
+    	return SoundManager.class.getResource("/rbadia/voidspace/sounds/" + SOUND_FILES[sound]);
+    }
+
+    /**
+     * Loads and decodes a sound effect. May be called by any thread.
+     * @param sound the index of the sound effect
+     * @return the samples of the sound effect
+     * @throws IOException if the file is missing or can't be read
+     * @throws UnsupportedAudioFileException if the file is not in a known audio format
+     */
+    public static short[] readSound(int sound) throws IOException, UnsupportedAudioFileException{
+    	URL url = getSoundUrl(sound);
+    	if(url == null){
+    		throw new IOException("Missing sound file: " + SOUND_FILES[sound]);
+    	}
+    	return AudioEngine.read(url);
+    }
+
+    /**
+     * Prepares a music track to be streamed.
+     * @return the track's player, or null if it can't be played
+     */
+    private MusicPlayer loadMusic(String name){
+    	URL url = SoundManager.class.getResource("/rbadia/voidspace/sounds/" + name);
+    	if(url == null){
+    		System.err.println("Missing music file: " + name);
+    		return null;
+    	}
+    	try{
+    		MusicPlayer player = new MusicPlayer(url);
+    		return player.start() ? player : null;
+    	}
+    	catch(Exception e){
+    		System.err.println("Could not load music file " + name + ": " + e);
+    		return null;
+    	}
+    }
+
+    /**
+     * Asks for a sound effect to be played at the end of the tick.
+     */
+    private void request(int sound){
+    	requested[sound] = true;
+    }
+
+    /**
+     * Plays the sound effects asked for during the tick, each once, except those played
+     * less than a merge window ago. Should be called by the simulation thread at the end
+     * of every tick.
+     */
+    public void playRequestedSounds(){
+    	if(!soundOn){
+    		return;
     	}
+    	long now = System.nanoTime();
+    	for(int sound = 0; sound < sounds.length; sound++){
+    		if(!requested[sound]){
+    			continue;
+    		}
+    		requested[sound] = false;
+    		if(sounds[sound] >= 0 && now - lastPlayed[sound] >= MERGE_WINDOW_NANOS && engine.play(sounds[sound])){
+    			lastPlayed[sound] = now;
+    		}
+    	}
+    }
+
+    /**
+     * Plays sound for bullets fired by the ship.
+     */
+    public void playBulletSound(){
+    	request(BULLET);
     }
     
     /**
      * Plays sound for ship explosions.
      */
     public void playShipExplosionSound(){
-    	if(SOUND_ON){
-    		new Thread(new Runnable(){
-    			public void run() {
-    				shipExplosionSound.play();
-    			}
-    		}).start();
-    	}
+    	request(EXPLOSION);
     }
     
     /**
      * Plays sound for asteroid explosions.
      */
     public void playAsteroidExplosionSound(){
-    	if(SOUND_ON){
-    		new Thread(new Runnable(){
-    			public void run() {
-    				shipExplosionSound.play();
-    			}
-    		}).start();
-    	}
+    	request(EXPLOSION);
     }
     
     /**
-     * Plays music.
+     * Plays music, looping it. If the music is already playing it starts over.
      */
     public void playArcadeFunk(){
-    	if(SOUND_ON){
-    		new Thread(new Runnable(){
-    			public void run() {
-    				arcadeFunk.play();
-    			}
-    		}).start();
+    	if(soundOn && arcadeFunk != null){
+    		arcadeFunk.play();
     	}
     }
     
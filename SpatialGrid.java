@@ -0,0 +1,257 @@
+package rbadia.voidspace.main;
+
+import java.util.Arrays;
+
+import rbadia.voidspace.model.BulletPool;
+import rbadia.voidspace.model.CollisionMask;
+import rbadia.voidspace.model.GameObject;
+
+/**
+ * Uniform grid over the playfield that finds the bullets hitting a game object without
+ * testing every bullet, so checking <i>t</i> targets against <i>b</i> bullets costs about
+ * <i>t + b</i> instead of <i>t &times; b</i>.
+ * <p>
+ * The grid is rebuilt from the {@link BulletPool} once per tick, before the collisions are
+ * checked, by counting the bullets of each cell and then filling one flat array of bullet
+ * indexes sorted by cell. Bullets are put in every cell their path crosses during the tick,
+ * and targets are looked up the same way, so that the swept test of
+ * {@link BulletPool#sweepIntersects(int, GameObject)} finds every hit. Bullets and targets
+ * outside the playfield are put in the nearest edge cells, so nothing is missed. Bullets
+ * hit while the collisions are checked are only marked, and taken out of the pool by
+ * {@link #removeHits()} at the end, so that the indexes in the grid stay valid.
+ * <p>
+ * Only the simulation thread may build the grid and mark hits, but once it is built any
+ * number of threads may collect from it (see {@link CollisionPhase}). Once its arrays are
+ * big enough, rebuilding and collecting from it allocates nothing.
+ */
+public class SpatialGrid {
+	/** Default size of the square cells, in pixels. */
+	public static final int DEFAULT_CELL_SIZE = 64;
+
+	private final int cellSize;
+	private final int columns;
+	private final int rows;
+
+	private BulletPool bullets;
+
+	// index in cellBullets of the first bullet of each cell, plus the total at the end
+	private final int[] cellStart;
+	private int[] cellBullets = new int[256];
+	private boolean[] hit = new boolean[64];
+	private int hits;
+
+	/**
+	 * Creates a new grid with the default cell size.
+	 * @param width the width of the playfield
+	 * @param height the height of the playfield
+	 */
+	public SpatialGrid(int width, int height) {
+		this(width, height, DEFAULT_CELL_SIZE);
+	}
+
+	/**
+	 * Creates a new grid.
+	 * @param width the width of the playfield
+	 * @param height the height of the playfield
+	 * @param cellSize the size of the square cells; about the size of the largest target works best
+	 */
+	public SpatialGrid(int width, int height, int cellSize) {
+		if(width < 1 || height < 1 || cellSize < 1){
+			throw new IllegalArgumentException("Invalid grid size: width=" + width + ", height=" + height
+					+ ", cellSize=" + cellSize);
+		}
+		this.cellSize = cellSize;
+		this.columns = (width + cellSize - 1) / cellSize;
+		this.rows = (height + cellSize - 1) / cellSize;
+		this.cellStart = new int[columns * rows + 1];
+	}
+
+	/**
+	 * Indexes the current location of all the bullets of a pool.
+	 * @param bullets the bullets
+	 */
+	public void build(BulletPool bullets) {
+		this.bullets = bullets;
+		int size = bullets.size();
+		if(hit.length < size){
+			hit = new boolean[Math.max(size, hit.length * 2)];
+		}
+		else{
+			Arrays.fill(hit, 0, size, false);
+		}
+		hits = 0;
+
+		// count the bullets of each cell, a bullet crossing several cells counts in all of them
+		Arrays.fill(cellStart, 0);
+		int entries = 0;
+		for(int i = 0; i < size; i++){
+			int x = Math.min(bullets.getPreviousX(i), bullets.getX(i));
+			int y = Math.min(bullets.getPreviousY(i), bullets.getY(i));
+			int lastColumn = column(Math.max(bullets.getPreviousX(i), bullets.getX(i)) + BulletPool.WIDTH - 1);
+			int lastRow = row(Math.max(bullets.getPreviousY(i), bullets.getY(i)) + BulletPool.HEIGHT - 1);
+			for(int row = row(y); row <= lastRow; row++){
+				for(int column = column(x); column <= lastColumn; column++){
+					cellStart[row * columns + column + 1]++;
+					entries++;
+				}
+			}
+		}
+		for(int cell = 1; cell < cellStart.length; cell++){
+			cellStart[cell] += cellStart[cell - 1];
+		}
+		if(cellBullets.length < entries){
+			cellBullets = new int[Math.max(entries, cellBullets.length * 2)];
+		}
+
+		// fill the cells, using the start of each cell as its fill position
+		for(int i = 0; i < size; i++){
+			int x = Math.min(bullets.getPreviousX(i), bullets.getX(i));
+			int y = Math.min(bullets.getPreviousY(i), bullets.getY(i));
+			int lastColumn = column(Math.max(bullets.getPreviousX(i), bullets.getX(i)) + BulletPool.WIDTH - 1);
+			int lastRow = row(Math.max(bullets.getPreviousY(i), bullets.getY(i)) + BulletPool.HEIGHT - 1);
+			for(int row = row(y); row <= lastRow; row++){
+				for(int column = column(x); column <= lastColumn; column++){
+					cellBullets[cellStart[row * columns + column]++] = i;
+				}
+			}
+		}
+		// the fill moved every start to the start of the next cell, move them back
+		System.arraycopy(cellStart, 0, cellStart, 1, cellStart.length - 1);
+		cellStart[0] = 0;
+	}
+
+	/**
+	 * Collects the bullets of the given owner that touched a game object during the current
+	 * tick, in no particular order; a bullet may be collected more than once. Hits marked
+	 * with {@link #remove(int)} are not taken into account, so this can run on any thread
+	 * while the grid is not being built.
+	 * @param target the game object
+	 * @param targetMask the collision mask of the game object, or null to use its bounding box
+	 * @param owner the owner of the bullets to look for
+	 * @param bulletMask the collision mask of the bullets, or null to use their bounding box
+	 * @param hits the buffer to add the bullets to
+	 */
+	public void collect(GameObject target, CollisionMask targetMask, int owner, CollisionMask bulletMask,
+			Hits hits) {
+		if(target.width <= 0 || target.height <= 0){
+			return;
+		}
+		int firstColumn = column(Math.min(target.getPreviousX(), target.x));
+		int firstRow = row(Math.min(target.getPreviousY(), target.y));
+		int lastColumn = column(Math.max(target.getPreviousX(), target.x) + target.width - 1);
+		int lastRow = row(Math.max(target.getPreviousY(), target.y) + target.height - 1);
+		for(int row = firstRow; row <= lastRow; row++){
+			for(int column = firstColumn; column <= lastColumn; column++){
+				int cell = row * columns + column;
+				for(int k = cellStart[cell]; k < cellStart[cell + 1]; k++){
+					int i = cellBullets[k];
+					if(bullets.getOwner(i) == owner && bullets.sweepIntersects(i, target)
+							&& (targetMask == null || bulletMask == null
+									|| bullets.sweepOverlaps(i, bulletMask, target, targetMask))){
+						hits.add(i);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Indicates if a bullet has been marked as hit.
+	 * @param i the index of the bullet
+	 * @return true if the bullet is hit
+	 */
+	public boolean isHit(int i) {
+		return hit[i];
+	}
+
+	/**
+	 * Marks a bullet as hit: it is not returned by queries anymore, and is taken out
+	 * of the pool by {@link #removeHits()}.
+	 * @param i the index of the bullet
+	 */
+	public void remove(int i) {
+		if(!hit[i]){
+			hit[i] = true;
+			hits++;
+		}
+	}
+
+	/**
+	 * Takes the bullets marked as hit out of the pool. The grid is out of date afterwards,
+	 * until it is built again.
+	 */
+	public void removeHits() {
+		// from the end, so the bullets swapped into the freed places are already checked
+		for(int i = bullets.size() - 1; i >= 0 && hits > 0; i--){
+			if(hit[i]){
+				bullets.remove(i);
+				hits--;
+			}
+		}
+	}
+
+	/**
+	 * A growable list of bullet indexes, filled by {@link SpatialGrid#collect}.
+	 */
+	public static class Hits {
+		private int[] bullets = new int[16];
+		private int size;
+
+		/**
+		 * Adds a bullet, growing the list if it is full.
+		 * @param bullet the index of the bullet
+		 */
+		public void add(int bullet) {
+			if(size == bullets.length){
+				bullets = Arrays.copyOf(bullets, size * 2);
+			}
+			bullets[size++] = bullet;
+		}
+
+		/**
+		 * Sorts the bullets by index, removing the duplicates.
+		 */
+		public void sort() {
+			Arrays.sort(bullets, 0, size);
+			int unique = 0;
+			for(int k = 0; k < size; k++){
+				if(unique == 0 || bullets[k] != bullets[unique - 1]){
+					bullets[unique++] = bullets[k];
+				}
+			}
+			size = unique;
+		}
+
+		/**
+		 * Removes all the bullets. The capacity is kept.
+		 */
+		public void clear() {
+			size = 0;
+		}
+
+		/**
+		 * Returns the number of bullets in the list.
+		 * @return the number of bullets
+		 */
+		public int size() {
+			return size;
+		}
+
+		/**
+		 * Returns a bullet of the list.
+		 * @param k the position in the list, from 0 to {@link #size()} - 1
+		 * @return the index of the bullet in its pool
+		 */
+		public int get(int k) {
+			return bullets[k];
+		}
+	}
+
+	private int column(int x) {
+		return Math.max(0, Math.min(columns - 1, x / cellSize));
+	}
+
+	private int row(int y) {
+		return Math.max(0, Math.min(rows - 1, y / cellSize));
+	}
+}
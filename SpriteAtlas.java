@@ -0,0 +1,148 @@
+package rbadia.voidspace.graphics;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.ImageObserver;
+
+/**
+ * All the game's sprites packed into one image in the display's own pixel format, so that
+ * drawing a sprite is a straight copy from a single image that Java2D can keep in video
+ * memory, instead of a conversion from whatever format the image decoder returned.
+ * <p>
+ * Sprites are packed in rows ("shelves"), tallest first, with a pixel of space around each
+ * so that neighbours never bleed into each other. The atlas image is created with
+ * {@link GraphicsConfiguration#createCompatibleImage(int, int, int)} for the screen, or as a
+ * premultiplied ARGB image when there is no screen. Sprites are identified by their index
+ * in the array the atlas was built from.
+ */
+public class SpriteAtlas {
+	/** Default width of the atlas image; wider sprites get a row of their own. */
+	public static final int DEFAULT_WIDTH = 512;
+
+	private static final int PADDING = 1;
+
+	private final BufferedImage image;
+	private final Rectangle[] regions;
+
+	/**
+	 * Packs sprites into an atlas compatible with the default screen.
+	 * @param sprites the sprites
+	 */
+	public SpriteAtlas(BufferedImage[] sprites) {
+		this(sprites, getDefaultConfiguration(), DEFAULT_WIDTH);
+	}
+
+	/**
+	 * Packs sprites into an atlas.
+	 * @param sprites the sprites
+	 * @param config the graphics configuration of the screen the sprites are drawn on,
+	 * or null if there is none
+	 * @param width the width of the atlas image
+	 */
+	public SpriteAtlas(BufferedImage[] sprites, GraphicsConfiguration config, int width) {
+		regions = new Rectangle[sprites.length];
+
+		// place the sprites, tallest first, in rows from left to right
+		int[] order = new int[sprites.length];
+		for(int i = 0; i < sprites.length; i++){
+			// insertion sort by height, there are only a few sprites
+			int j = i;
+			while(j > 0 && sprites[order[j - 1]].getHeight() < sprites[i].getHeight()){
+				order[j] = order[j - 1];
+				j--;
+			}
+			order[j] = i;
+		}
+		int atlasWidth = width;
+		int x = PADDING;
+		int y = PADDING;
+		int rowHeight = 0;
+		for(int i : order){
+			int spriteWidth = sprites[i].getWidth();
+			int spriteHeight = sprites[i].getHeight();
+			if(x > PADDING && x + spriteWidth + PADDING > width){
+				// start a new row
+				x = PADDING;
+				y += rowHeight + PADDING;
+				rowHeight = 0;
+			}
+			regions[i] = new Rectangle(x, y, spriteWidth, spriteHeight);
+			x += spriteWidth + PADDING;
+			rowHeight = Math.max(rowHeight, spriteHeight);
+			atlasWidth = Math.max(atlasWidth, x);
+		}
+		int atlasHeight = y + rowHeight + PADDING;
+
+		// copy the sprites into an image in the screen's format
+		image = createImage(config, atlasWidth, atlasHeight);
+		Graphics2D g2d = image.createGraphics();
+		g2d.setComposite(AlphaComposite.Src);
+		for(int i = 0; i < sprites.length; i++){
+			g2d.drawImage(sprites[i], regions[i].x, regions[i].y, null);
+		}
+		g2d.dispose();
+	}
+
+	/**
+	 * Returns the graphics configuration of the default screen.
+	 * @return the configuration, or null if there is no screen
+	 */
+	public static GraphicsConfiguration getDefaultConfiguration() {
+		if(GraphicsEnvironment.isHeadless()){
+			return null;
+		}
+		return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+				.getDefaultConfiguration();
+	}
+
+	private static BufferedImage createImage(GraphicsConfiguration config, int width, int height) {
+		if(config == null){
+			return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+		}
+		return config.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+	}
+
+	/**
+	 * Returns the atlas image holding all the sprites.
+	 * @return the atlas image
+	 */
+	public BufferedImage getImage() {
+		return image;
+	}
+
+	/**
+	 * Returns the number of sprites in the atlas.
+	 * @return the number of sprites
+	 */
+	public int getSpriteCount() {
+		return regions.length;
+	}
+
+	/**
+	 * Returns where a sprite is in the atlas image.
+	 * @param sprite the index of the sprite
+	 * @return the sprite's region; must not be modified
+	 */
+	public Rectangle getRegion(int sprite) {
+		return regions[sprite];
+	}
+
+	/**
+	 * Draws a sprite at the given location to the specified graphics canvas.
+	 * @param sprite the index of the sprite
+	 * @param x the x coordinate to draw the sprite at
+	 * @param y the y coordinate to draw the sprite at
+	 * @param g2d the graphics canvas
+	 * @param observer object to be notified
+	 */
+	public void draw(int sprite, int x, int y, Graphics2D g2d, ImageObserver observer) {
+		Rectangle region = regions[sprite];
+		g2d.drawImage(image, x, y, x + region.width, y + region.height,
+				region.x, region.y, region.x + region.width, region.y + region.height, observer);
+	}
+}
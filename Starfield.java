@@ -0,0 +1,177 @@
+package rbadia.voidspace.graphics;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.SplittableRandom;
+
+/**
+ * The scrolling background of the game screen: a few layers of stars, the farther layers
+ * dimmer and slower, for a parallax effect.
+ * <p>
+ * The far layers are drawn once, together, into an opaque image the size of the screen,
+ * which scrolls down slowly and also erases the screen; it is drawn in two plain blits, the
+ * image wrapping around the bottom of the screen. The nearest layer has only a few stars,
+ * which are drawn one by one over it as they scroll down faster. A frame therefore costs
+ * two opaque blits and a pixel per near star, whatever the number of far stars.
+ */
+public class Starfield {
+	/** Default number of stars of each layer, farthest first. */
+	public static final int[] DEFAULT_STARS = {60, 30, 12};
+
+	// color of each layer, farthest first
+	private static final Color[] COLORS = {new Color(0x505050), new Color(0xa0a0a0), Color.WHITE};
+	// speed of the far layers and of the nearest one, in pixels per second
+	private static final int FAR_SPEED = 10;
+	private static final int NEAR_SPEED = 45;
+
+	private static final double NANOS_PER_SECOND = 1e9;
+
+	private final int width;
+	private final int height;
+	// the far layers, together
+	private final BufferedImage far;
+	// the nearest layer, if there is more than one
+	private final Color nearColor;
+	private final int[] nearX;
+	private final int[] nearY;
+
+	/**
+	 * Creates a new starfield with the default number of stars, for the default screen.
+	 * @param width the width of the screen
+	 * @param height the height of the screen
+	 * @param rand the random stream for star locations
+	 */
+	public Starfield(int width, int height, SplittableRandom rand) {
+		this(width, height, DEFAULT_STARS, rand, SpriteAtlas.getDefaultConfiguration());
+	}
+
+	/**
+	 * Creates a new starfield.
+	 * @param width the width of the screen
+	 * @param height the height of the screen
+	 * @param stars the number of stars of each layer, farthest first; at most three layers,
+	 * the last of which is the near one if there are more than one
+	 * @param rand the random stream for star locations
+	 * @param config the graphics configuration of the screen, or null if there is none
+	 */
+	public Starfield(int width, int height, int[] stars, SplittableRandom rand, GraphicsConfiguration config) {
+		if(width < 1 || height < 1 || stars.length < 1 || stars.length > COLORS.length){
+			throw new IllegalArgumentException("Invalid starfield: width=" + width + ", height=" + height
+					+ ", layers=" + stars.length);
+		}
+		this.width = width;
+		this.height = height;
+		int farLayers = Math.max(1, stars.length - 1);
+
+		if(config == null){
+			far = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		}
+		else{
+			far = config.createCompatibleImage(width, height, Transparency.OPAQUE);
+		}
+		Graphics2D g2d = far.createGraphics();
+		g2d.setColor(Color.BLACK);
+		g2d.fillRect(0, 0, width, height);
+		for(int layer = 0; layer < farLayers; layer++){
+			g2d.setColor(COLORS[layer]);
+			for(int i = 0; i < stars[layer]; i++){
+				int x = rand.nextInt(width);
+				int y = rand.nextInt(height);
+				g2d.drawLine(x, y, x, y);
+			}
+		}
+		g2d.dispose();
+
+		int near = stars.length > 1 ? stars[stars.length - 1] : 0;
+		nearColor = COLORS[stars.length - 1];
+		nearX = new int[near];
+		nearY = new int[near];
+		for(int i = 0; i < near; i++){
+			nearX[i] = rand.nextInt(width);
+			nearY[i] = rand.nextInt(height);
+		}
+	}
+
+	/**
+	 * Returns the width of the starfield.
+	 * @return the width in pixels
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Returns the height of the starfield.
+	 * @return the height in pixels
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Draws the starfield over the whole screen, erasing it.
+	 * @param g2d the graphics canvas
+	 * @param time the current time in nanoseconds, which sets how far the layers have scrolled
+	 */
+	public void draw(Graphics2D g2d, long time) {
+		int offset = getOffset(time, FAR_SPEED);
+		g2d.drawImage(far, 0, offset, null);
+		g2d.drawImage(far, 0, offset - height, null);
+		drawNear(g2d, time, 0, 0, width, height);
+	}
+
+	/**
+	 * Draws the part of the starfield under a rectangle of the screen, erasing it.
+	 * @param g2d the graphics canvas
+	 * @param time the current time in nanoseconds, which sets how far the layers have scrolled
+	 * @param x the x coordinate of the rectangle
+	 * @param y the y coordinate of the rectangle
+	 * @param width the width of the rectangle
+	 * @param height the height of the rectangle
+	 */
+	public void draw(Graphics2D g2d, long time, int x, int y, int width, int height) {
+		int offset = getOffset(time, FAR_SPEED);
+		drawRows(g2d, offset, x, y, width, height);
+		drawRows(g2d, offset - this.height, x, y, width, height);
+		drawNear(g2d, time, x, y, width, height);
+	}
+
+	/**
+	 * Returns how far a layer moving at a speed has scrolled, wrapping at the height.
+	 */
+	private int getOffset(long time, int speed) {
+		return (int) ((long) (time / NANOS_PER_SECOND * speed) % height);
+	}
+
+	/**
+	 * Draws the part of the far layers placed at the given height that is under a rectangle.
+	 */
+	private void drawRows(Graphics2D g2d, int farY, int x, int y, int width, int height) {
+		int y0 = Math.max(y, farY);
+		int y1 = Math.min(y + height, farY + this.height);
+		if(y0 < y1){
+			g2d.drawImage(far, x, y0, x + width, y1, x, y0 - farY, x + width, y1 - farY, null);
+		}
+	}
+
+	/**
+	 * Draws the near stars that are inside a rectangle.
+	 */
+	private void drawNear(Graphics2D g2d, long time, int x, int y, int width, int height) {
+		if(nearX.length == 0){
+			return;
+		}
+		int offset = getOffset(time, NEAR_SPEED);
+		g2d.setColor(nearColor);
+		for(int i = 0; i < nearX.length; i++){
+			int starX = nearX[i];
+			int starY = (nearY[i] + offset) % this.height;
+			if(starX >= x && starX < x + width && starY >= y && starY < y + height){
+				g2d.fillRect(starX, starY, 1, 1);
+			}
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package rbadia.voidspace.graphics;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+/**
+ * A line of text laid out and drawn once, in one font and color, into an image the size of
+ * the text, so that drawing it again is a single blit instead of a font lookup, a layout and
+ * the rasterization of every glyph.
+ * <p>
+ * Text that grows on screen is drawn from a few images of increasing size, made by
+ * {@link #createSizes}, rather than from a new font every frame.
+ */
+public class TextImage {
+	private final String text;
+	private final Font font;
+	private final int width;
+	private final int ascent;
+	private final BufferedImage image;
+
+	/**
+	 * Lays out and draws a line of text for the default screen.
+	 * @param text the text
+	 * @param font the font
+	 * @param color the color
+	 */
+	public TextImage(String text, Font font, Color color) {
+		this(text, font, color, SpriteAtlas.getDefaultConfiguration());
+	}
+
+	/**
+	 * Lays out and draws a line of text.
+	 * @param text the text
+	 * @param font the font
+	 * @param color the color
+	 * @param config the graphics configuration of the screen, or null if there is none
+	 */
+	public TextImage(String text, Font font, Color color, GraphicsConfiguration config) {
+		this.text = text;
+		this.font = font;
+		FontMetrics fm = getFontMetrics(font);
+		this.width = Math.max(1, fm.stringWidth(text));
+		this.ascent = fm.getAscent();
+		int height = Math.max(1, fm.getAscent() + fm.getDescent());
+
+		// the text is drawn without antialiasing, so its pixels are either opaque or transparent
+		if(config == null){
+			image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+		}
+		else{
+			image = config.createCompatibleImage(width, height, Transparency.BITMASK);
+		}
+		Graphics2D g2d = image.createGraphics();
+		g2d.setFont(font);
+		g2d.setColor(color);
+		g2d.drawString(text, 0, ascent);
+		g2d.dispose();
+	}
+
+	/**
+	 * Lays out and draws a line of text at increasing sizes, from one point bigger than a
+	 * font up to the biggest size that fits in a width.
+	 * @param text the text
+	 * @param font the font to start from
+	 * @param color the color
+	 * @param maxWidth the width the biggest size must fit in
+	 * @param steps the number of sizes
+	 * @return the images, smallest first; at least one, of the starting size
+	 */
+	public static TextImage[] createSizes(String text, Font font, Color color, int maxWidth, int steps) {
+		// find the biggest size, growing a point at a time as the banners always have
+		float minSize = font.getSize2D() + 1;
+		float maxSize = minSize;
+		while(getFontMetrics(font.deriveFont(maxSize + 1)).stringWidth(text) <= maxWidth){
+			maxSize++;
+		}
+
+		int count = (int) Math.max(1, Math.min(steps, maxSize - minSize + 1));
+		TextImage[] sizes = new TextImage[count];
+		GraphicsConfiguration config = SpriteAtlas.getDefaultConfiguration();
+		for(int i = 0; i < count; i++){
+			float size = count == 1 ? maxSize : Math.round(minSize + (maxSize - minSize) * i / (count - 1));
+			sizes[i] = new TextImage(text, font.deriveFont(size), color, config);
+		}
+		return sizes;
+	}
+
+	/**
+	 * Returns the metrics of a font, as drawn on an image with the default rendering hints.
+	 */
+	private static FontMetrics getFontMetrics(Font font) {
+		BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g2d = scratch.createGraphics();
+		try{
+			return g2d.getFontMetrics(font);
+		}
+		finally{
+			g2d.dispose();
+		}
+	}
+
+	/**
+	 * Returns the text drawn.
+	 * @return the text
+	 */
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * Returns the font the text is drawn in.
+	 * @return the font
+	 */
+	public Font getFont() {
+		return font;
+	}
+
+	/**
+	 * Returns the advance width of the text.
+	 * @return the width in pixels
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Returns the ascent of the font, from the top of the image to the baseline.
+	 * @return the ascent in pixels
+	 */
+	public int getAscent() {
+		return ascent;
+	}
+
+	/**
+	 * Returns the height of the text's image, ascent and descent included.
+	 * @return the height in pixels
+	 */
+	public int getHeight() {
+		return image.getHeight();
+	}
+
+	/**
+	 * Draws the text with its baseline starting at the given location.
+	 * @param x the x coordinate of the start of the text
+	 * @param y the y coordinate of the baseline
+	 * @param g2d the graphics canvas
+	 */
+	public void draw(int x, int y, Graphics2D g2d) {
+		g2d.drawImage(image, x, y - ascent, null);
+	}
+}
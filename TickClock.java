@@ -0,0 +1,40 @@
+package rbadia.voidspace.main;
+
+/**
+ * Game clock that counts simulation ticks: game time advances by exactly one tick
+ * length on every tick, no matter how long the tick took in real time. Runs with the
+ * same seed and input are therefore identical at any simulation speed.
+ */
+public class TickClock implements GameClock {
+	private static final long NANOS_PER_SECOND = 1000000000L;
+
+	private final long tickNanos;
+	private long ticks;
+
+	/**
+	 * Creates a new tick clock at game time zero.
+	 * @param tickRate the number of simulation ticks per second
+	 */
+	public TickClock(int tickRate) {
+		if(tickRate < 1){
+			throw new IllegalArgumentException("Invalid tick rate: " + tickRate);
+		}
+		this.tickNanos = NANOS_PER_SECOND / tickRate;
+	}
+
+	public long currentTimeMillis() {
+		return ticks * tickNanos / 1000000;
+	}
+
+	public void tick() {
+		ticks++;
+	}
+
+	/**
+	 * Returns the number of ticks counted so far.
+	 * @return the number of ticks
+	 */
+	public long getTicks() {
+		return ticks;
+	}
+}
@@ -0,0 +1,168 @@
+package rbadia.voidspace.main;
+
+/**
+ * Runs delayed and periodic game work (message delays, respawns, firing cadence) on the
+ * simulation thread, counting time in simulation ticks.
+ * <p>
+ * Tasks are kept in a hashed timing wheel: an array of slots, one per tick, wrapping
+ * around. A task due in <i>n</i> ticks goes into slot <i>(now + n) mod size</i>, so
+ * scheduling and cancelling are O(1), and each tick only looks at the tasks of one slot.
+ * Tasks are linked into their slot directly, so a task can be scheduled again and again
+ * without allocating anything.
+ * <p>
+ * The scheduler is not thread safe; only the simulation thread may use it.
+ */
+public class TickScheduler {
+	/** Default number of slots of the wheel. */
+	public static final int DEFAULT_WHEEL_SIZE = 256;
+
+	private final int tickRate;
+	private final Task[] slots;
+	private final int mask;
+	private long currentTick;
+
+	/**
+	 * Work run by the scheduler once its delay has passed. A periodic task schedules
+	 * itself again when it runs.
+	 */
+	public abstract static class Task implements Runnable {
+		private Task previous;
+		private Task next;
+		private long deadline;
+		private boolean scheduled;
+
+		/**
+		 * Indicates if the task is waiting to be run.
+		 * @return true if the task is scheduled
+		 */
+		public boolean isScheduled() {
+			return scheduled;
+		}
+	}
+
+	/**
+	 * Creates a new scheduler with the default wheel size, at tick zero.
+	 * @param tickRate the number of simulation ticks per second
+	 */
+	public TickScheduler(int tickRate){
+		this(tickRate, DEFAULT_WHEEL_SIZE);
+	}
+
+	/**
+	 * Creates a new scheduler at tick zero.
+	 * @param tickRate the number of simulation ticks per second
+	 * @param wheelSize the number of slots of the wheel, a power of two; tasks due further
+	 * ahead than this many ticks work, but are looked at once per turn of the wheel
+	 */
+	public TickScheduler(int tickRate, int wheelSize){
+		if(tickRate < 1 || wheelSize < 1 || Integer.bitCount(wheelSize) != 1){
+			throw new IllegalArgumentException("Invalid scheduler sizes: tickRate=" + tickRate
+					+ ", wheelSize=" + wheelSize);
+		}
+		this.tickRate = tickRate;
+		this.slots = new Task[wheelSize];
+		this.mask = wheelSize - 1;
+	}
+
+	/**
+	 * Returns the number of ticks the scheduler has advanced.
+	 * @return the current tick
+	 */
+	public long getCurrentTick() {
+		return currentTick;
+	}
+
+	/**
+	 * Converts a delay in milliseconds of game time to ticks, rounding up.
+	 * @param millis the delay in milliseconds
+	 * @return the delay in ticks
+	 */
+	public long ticksFor(long millis) {
+		return (millis * tickRate + 999) / 1000;
+	}
+
+	/**
+	 * Schedules a task to run after a number of ticks. A task that is already
+	 * scheduled is moved to the new time.
+	 * @param task the task
+	 * @param delayTicks the number of ticks to wait, at least one
+	 */
+	public void schedule(Task task, long delayTicks) {
+		if(task.scheduled){
+			cancel(task);
+		}
+		task.deadline = currentTick + Math.max(1, delayTicks);
+		int slot = (int) (task.deadline & mask);
+		task.previous = null;
+		task.next = slots[slot];
+		if(task.next != null){
+			task.next.previous = task;
+		}
+		slots[slot] = task;
+		task.scheduled = true;
+	}
+
+	/**
+	 * Schedules a task to run after a delay in game time, rounded up to whole ticks.
+	 * @param task the task
+	 * @param delayMillis the delay in milliseconds
+	 */
+	public void scheduleMillis(Task task, long delayMillis) {
+		schedule(task, ticksFor(delayMillis));
+	}
+
+	/**
+	 * Cancels a scheduled task. Does nothing if the task is not scheduled.
+	 * @param task the task
+	 */
+	public void cancel(Task task) {
+		if(!task.scheduled){
+			return;
+		}
+		if(task.previous != null){
+			task.previous.next = task.next;
+		}
+		else{
+			slots[(int) (task.deadline & mask)] = task.next;
+		}
+		if(task.next != null){
+			task.next.previous = task.previous;
+		}
+		task.previous = null;
+		task.next = null;
+		task.scheduled = false;
+	}
+
+	/**
+	 * Cancels all the scheduled tasks.
+	 */
+	public void cancelAll() {
+		for(int i = 0; i < slots.length; i++){
+			while(slots[i] != null){
+				cancel(slots[i]);
+			}
+		}
+	}
+
+	/**
+	 * Advances to the next tick and runs the tasks due on it. Should be called once at
+	 * the start of every simulation tick.
+	 */
+	public void advance() {
+		currentTick++;
+		int slot = (int) (currentTick & mask);
+		Task task = slots[slot];
+		while(task != null){
+			if(task.deadline == currentTick){
+				cancel(task);
+				task.run();
+				// the task may have scheduled or cancelled others, look at the slot again
+				task = slots[slot];
+			}
+			else{
+				// due on a later turn of the wheel
+				task = task.next;
+			}
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package rbadia.voidspace.main;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands the latest value from one producer thread to one consumer thread without locks.
+ * <p>
+ * The producer fills the back buffer and publishes it; the consumer acquires the most
+ * recently published buffer. A third buffer sits in between, so neither thread ever
+ * waits for the other or writes a buffer the other one is reading. Values published
+ * faster than the consumer acquires them are simply skipped.
+ *
+ * @param <T> the type of the buffers
+ */
+public class TripleBuffer<T> {
+	private static final int INDEX_MASK = 3;
+	private static final int FRESH = 4;
+
+	private final Object[] buffers;
+	// index of the middle buffer, flagged FRESH if it was published after the last acquire
+	private final AtomicInteger middle = new AtomicInteger(1);
+	private int back = 0;
+	private int front = 2;
+
+	/**
+	 * Creates a new triple buffer. The three buffers must be distinct objects.
+	 * @param first the first buffer, initially the producer's back buffer
+	 * @param second the second buffer
+	 * @param third the third buffer, initially the consumer's front buffer
+	 */
+	public TripleBuffer(T first, T second, T third) {
+		if(first == second || second == third || first == third){
+			throw new IllegalArgumentException("The buffers of a triple buffer must be distinct");
+		}
+		this.buffers = new Object[] {first, second, third};
+	}
+
+	/**
+	 * Returns the buffer the producer should write into next. Only the producer thread may call this.
+	 * @return the back buffer
+	 */
+	@SuppressWarnings("unchecked")
+	public T getBack() {
+		return (T) buffers[back];
+	}
+
+	/**
+	 * Publishes the back buffer to the consumer and hands the producer a new back buffer.
+	 * Only the producer thread may call this.
+	 */
+	public void publish() {
+		back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+	}
+
+	/**
+	 * Returns the most recently published buffer, or the same buffer as the previous call
+	 * if nothing was published since. Only the consumer thread may call this.
+	 * @return the front buffer
+	 */
+	@SuppressWarnings("unchecked")
+	public T acquire() {
+		if((middle.get() & FRESH) != 0){
+			front = middle.getAndSet(front) & INDEX_MASK;
+		}
+		return (T) buffers[front];
+	}
+}
@@ -1,38 +1,323 @@
 package rbadia.voidspace.main;
 
+import java.awt.GraphicsDevice;
+import java.awt.GraphicsEnvironment;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
 import javax.swing.JFrame;
 
+import rbadia.voidspace.graphics.GraphicsManager;
+import rbadia.voidspace.sounds.SoundManager;
+
 /**
  * Main game class. Starts the game.
+ * <p>
+ * Usage: <code>VoidSpaceMain [-active] [-dirty] [-redraw=fraction] [-fullscreen] [-maxskip=frames] [-parallel=pairs] [seed]</code>
+ * <ul>
+ * <li><code>-active</code> draws the frames with active rendering instead of Swing painting</li>
+ * <li><code>-dirty</code> only draws the regions of the frames that change, over still stars
+ * (see {@link GameScreen#setDirtyRendering(boolean)}); ignored with active rendering</li>
+ * <li><code>-redraw=fraction</code> sets the fraction of the screen changing above which
+ * <code>-dirty</code> draws whole frames anyway (see {@link GameScreen#setFullRedrawThreshold(float)})</li>
+ * <li><code>-fullscreen</code> runs in full-screen exclusive mode, with active rendering</li>
+ * <li><code>-maxskip=frames</code> sets how many frames may be skipped in a row when the machine
+ * can't keep up (see {@link FramePacer})</li>
+ * <li><code>-parallel=pairs</code> sets how many bullet-target pairs it takes to check the
+ * collisions of a tick in parallel (see {@link CollisionPhase})</li>
+ * </ul>
  */
 public class VoidSpaceMain {
+	// how often the loading screen is drawn again, in milliseconds
+	private static final long LOADING_FRAME_MILLIS = 50;
 
 	/**
-	 * @param args
+	 * @param args the rendering options, and an optional seed for the game's random numbers, to replay a game
 	 */
 	public static void main(String[] args) {
+		long startTime = System.nanoTime();
+
+		// read the options
+		boolean activeRendering = false;
+		boolean dirtyRendering = false;
+		float fullRedrawThreshold = GameScreen.DEFAULT_FULL_REDRAW_THRESHOLD;
+		boolean fullScreen = false;
+		int maxFrameSkip = FramePacer.DEFAULT_MAX_FRAME_SKIP;
+		int parallelThreshold = CollisionPhase.DEFAULT_PARALLEL_THRESHOLD;
+		long seed = System.nanoTime();
+		for(String arg : args){
+			if(arg.equals("-active")){
+				activeRendering = true;
+			}
+			else if(arg.equals("-dirty")){
+				dirtyRendering = true;
+			}
+			else if(arg.startsWith("-redraw=")){
+				fullRedrawThreshold = Float.parseFloat(arg.substring("-redraw=".length()));
+			}
+			else if(arg.equals("-fullscreen")){
+				fullScreen = true;
+				activeRendering = true;
+			}
+			else if(arg.startsWith("-maxskip=")){
+				maxFrameSkip = Integer.parseInt(arg.substring("-maxskip=".length()));
+			}
+			else if(arg.startsWith("-parallel=")){
+				parallelThreshold = Integer.parseInt(arg.substring("-parallel=".length()));
+			}
+			else{
+				seed = Long.parseLong(arg);
+			}
+		}
+
+		// init random numbers
+		GameRandom random = new GameRandom(seed);
+		
 		// init main frame
 		MainFrame frame = new MainFrame();
 		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 		
 		// get game screens
         GameScreen gameScreen = frame.getGameScreen();
+        gameScreen.setGameRandom(random);
+        gameScreen.setActiveRendering(activeRendering);
+        gameScreen.setDirtyRendering(dirtyRendering);
+        gameScreen.setFullRedrawThreshold(fullRedrawThreshold);
+        
+        // show main frame
+		GraphicsDevice device = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice();
+		if(fullScreen && device.isFullScreenSupported()){
+			frame.setUndecorated(true);
+			device.setFullScreenWindow(frame);
+		}
+		else{
+			frame.setVisible(true);
+		}
+		long shownTime = System.nanoTime();
+		
+		// first check if the decoded assets of the last launch can be used: if the asset
+		// files haven't changed since
+		final File cacheFile = AssetCache.getDefaultFile();
+		AssetLoader assetLoader = new AssetLoader(AssetLoader.DEFAULT_THREADS);
+		gameScreen.setAssetLoader(assetLoader);
+		final Future<byte[]> assetHash = assetLoader.load("asset hash", new Callable<byte[]>(){
+			public byte[] call() throws Exception {
+				return hashAssets();
+			}
+		});
+		final Future<AssetCache> assetCache = assetLoader.load("asset cache", new Callable<AssetCache>(){
+			public AssetCache call() throws Exception {
+				byte[] hash = assetHash.get();
+				return hash != null ? openAssetCache(cacheFile, hash) : null;
+			}
+		});
+		
+		// then load the images and sounds, from the cache or decoding them
+		List<Future<BufferedImage>> sprites = new ArrayList<Future<BufferedImage>>();
+		for(int i = 0; i < GraphicsManager.getSpriteCount(); i++){
+			final int sprite = i;
+			sprites.add(assetLoader.load(GraphicsManager.getSpriteFile(sprite), new Callable<BufferedImage>(){
+				public BufferedImage call() throws Exception {
+					AssetCache cache = assetCache.get();
+					BufferedImage image = cache != null ? cache.getImage(GraphicsManager.getSpriteFile(sprite)) : null;
+					return image != null ? image : GraphicsManager.readSprite(sprite);
+				}
+			}));
+		}
+		List<Future<short[]>> sounds = new ArrayList<Future<short[]>>();
+		for(int i = 0; i < SoundManager.getSoundCount(); i++){
+			final int sound = i;
+			sounds.add(assetLoader.load(SoundManager.getSoundFile(sound), new Callable<short[]>(){
+				public short[] call() throws Exception {
+					AssetCache cache = assetCache.get();
+					short[] samples = cache != null ? cache.getSamples(SoundManager.getSoundFile(sound)) : null;
+					return samples != null ? samples : SoundManager.readSound(sound);
+				}
+			}));
+		}
+		
+		// show the loading screen until the assets are loaded
+		waitForAssets(assetLoader, gameScreen);
+		assetLoader.shutdown();
+		BufferedImage[] spriteImages = getSprites(sprites);
+		short[][] soundSamples = getSounds(sounds);
+		GraphicsManager graphicsMan = new GraphicsManager(spriteImages);
+		SoundManager soundMan = new SoundManager(soundSamples);
+		gameScreen.setGraphicsMan(graphicsMan);
+		System.out.println(assetLoader.getReport());
+		boolean cached = getDone(assetCache) != null;
+		if(cached){
+			System.out.println("Assets read from the cache " + cacheFile);
+		}
+		System.out.println(String.format("Startup: window shown after %.1f ms, game ready after %.1f ms",
+				(shownTime - startTime) / 1e6, (System.nanoTime() - startTime) / 1e6));
 		
 		// init game logic handler
-		GameLogic gameLogic = new GameLogic(gameScreen);
+		GameLogic gameLogic = new GameLogic(gameScreen, soundMan,
+				new TickClock(GameLoop.DEFAULT_TICK_RATE),
+				new TickScheduler(GameLoop.DEFAULT_TICK_RATE), random);
+		gameLogic.setCollisionMasks(graphicsMan.getCollisionMasks());
+		gameLogic.setParallelThreshold(parallelThreshold);
 		
-		// pass some variables to game screen
-        gameScreen.setGameLogic(gameLogic);
-        
 		// init input handler
         InputHandler inputHandler = new InputHandler(gameLogic);
         frame.addKeyListener(inputHandler);
-        
-        // show main frame
-		frame.setVisible(true);
+		
+		// init the snapshots passed from the simulation to the render thread
+		TripleBuffer<WorldSnapshot> snapshots = new TripleBuffer<WorldSnapshot>(
+				new WorldSnapshot(), new WorldSnapshot(), new WorldSnapshot());
+		
+		// pace the frames to the display's refresh rate
+		final FramePacer framePacer = new FramePacer(FramePacer.detectRefreshRate(device), maxFrameSkip);
+		
+		// init the phase timings
+		final FrameStats frameStats = new FrameStats();
 		
 		// init main game loop
-		new Thread(new GameLoop(gameScreen, gameLogic, inputHandler)).start();
+		final GameLoop gameLoop = new GameLoop(gameLogic, inputHandler, snapshots);
+		gameLoop.setFrameStats(frameStats);
+		new Thread(gameLoop, "Simulation").start();
+		
+		// init render loop
+		RenderLoop renderLoop = new RenderLoop(gameScreen, snapshots, gameLoop.getTickNanos(), framePacer);
+		renderLoop.setFrameStats(frameStats);
+		new Thread(renderLoop, "Render").start();
+		
+		// print the timings and the frames and ticks lost to load when the game exits
+		Runtime.getRuntime().addShutdownHook(new Thread("Frame stats"){
+			public void run() {
+				System.out.println(frameStats.getReport());
+				System.out.println(framePacer.getReport() + ", ticks dropped: " + gameLoop.getDroppedTicks());
+			}
+		});
+		
+		// keep the decoded assets for the next launch
+		byte[] hash = getDone(assetHash);
+		if(hash != null && !cached){
+			writeAssetCache(cacheFile, hash, spriteImages, soundSamples);
+		}
+	}
+
+	/**
+	 * Returns the result of a loading task that is done, or null if it failed.
+	 */
+	private static <T> T getDone(Future<T> future) {
+		try{
+			return future.get();
+		}
+		catch(Exception e){
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the hash of the game's image and sound files, or null if they can't be read.
+	 */
+	private static byte[] hashAssets() {
+		URL[] sources = new URL[GraphicsManager.getSpriteCount() + SoundManager.getSoundCount()];
+		for(int i = 0; i < GraphicsManager.getSpriteCount(); i++){
+			sources[i] = GraphicsManager.getSpriteUrl(i);
+		}
+		for(int i = 0; i < SoundManager.getSoundCount(); i++){
+			sources[GraphicsManager.getSpriteCount() + i] = SoundManager.getSoundUrl(i);
+		}
+		try{
+			return AssetCache.hash(sources);
+		}
+		catch(IOException e){
+			System.err.println("Could not hash the asset files: " + e);
+			return null;
+		}
+	}
+
+	/**
+	 * Opens the asset cache, or returns null if it is missing, stale or can't be read.
+	 */
+	private static AssetCache openAssetCache(File file, byte[] hash) {
+		try{
+			return AssetCache.open(file, hash);
+		}
+		catch(IOException e){
+			System.err.println("Could not read the asset cache " + file + ": " + e);
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the decoded assets to the asset cache.
+	 */
+	private static void writeAssetCache(File file, byte[] hash, BufferedImage[] sprites, short[][] sounds) {
+		String[] spriteFiles = new String[sprites.length];
+		for(int i = 0; i < sprites.length; i++){
+			spriteFiles[i] = GraphicsManager.getSpriteFile(i);
+		}
+		String[] soundFiles = new String[sounds.length];
+		for(int i = 0; i < sounds.length; i++){
+			soundFiles[i] = SoundManager.getSoundFile(i);
+		}
+		try{
+			AssetCache.write(file, hash, spriteFiles, sprites, soundFiles, sounds);
+			System.out.println("Assets written to the cache " + file);
+		}
+		catch(IOException e){
+			System.err.println("Could not write the asset cache " + file + ": " + e);
+		}
+	}
+
+	/**
+	 * Draws the loading screen, from the main thread, until all the assets are loaded.
+	 */
+	private static void waitForAssets(AssetLoader assetLoader, GameScreen gameScreen) {
+		WorldSnapshot loading = new WorldSnapshot();
+		boolean done = false;
+		while(!done){
+			gameScreen.renderScreen(loading, 0);
+			gameScreen.presentScreen();
+			try{
+				done = assetLoader.awaitDone(LOADING_FRAME_MILLIS);
+			}
+			catch(InterruptedException e){
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Returns the loaded game images, exiting if any couldn't be loaded.
+	 */
+	private static BufferedImage[] getSprites(List<Future<BufferedImage>> futures) {
+		BufferedImage[] sprites = new BufferedImage[futures.size()];
+		try{
+			for(int i = 0; i < sprites.length; i++){
+				sprites[i] = futures.get(i).get();
+			}
+		}
+		catch(Exception e){
+			GraphicsManager.showLoadingError(e);
+		}
+		return sprites;
+	}
+
+	/**
+	 * Returns the loaded sound effects, null for those that couldn't be loaded.
+	 */
+	private static short[][] getSounds(List<Future<short[]>> futures) {
+		short[][] sounds = new short[futures.size()][];
+		for(int i = 0; i < sounds.length; i++){
+			try{
+				sounds[i] = futures.get(i).get();
+			}
+			catch(Exception e){
+				System.err.println("Could not load sound file " + SoundManager.getSoundFile(i) + ": " + e);
+			}
+		}
+		return sounds;
 	}
 
 
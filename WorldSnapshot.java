@@ -0,0 +1,150 @@
+package rbadia.voidspace.main;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+import rbadia.voidspace.model.GameObject;
+
+/**
+ * Copy of everything the game screen needs to draw a frame, taken by the simulation
+ * thread at the end of a tick. Snapshots are reused from tick to tick and exchanged
+ * with the render thread through a {@link TripleBuffer}, so the render thread never
+ * reads the game objects while they are being updated.
+ */
+public class WorldSnapshot {
+	// game flags
+	boolean gameStarting;
+	boolean gameStarted;
+	boolean gameOver;
+	boolean gameWon;
+
+	// status variables
+	long asteroidsDestroyed;
+	int shipsLeft;
+	long score;
+	int level;
+
+	// boss health bar
+	int bossWidth;
+	int bossHealth;
+	int bossDefaultHealth;
+
+	// System.nanoTime() at which the tick was due
+	long tickTime;
+
+	final Positions ships = new Positions();
+	final Positions enemyShips = new Positions();
+	final Positions bossShips = new Positions();
+	final Positions asteroids = new Positions();
+	final Positions bullets = new Positions();
+	final Positions enemyBullets = new Positions();
+	final Positions bossBullets = new Positions();
+	final Positions asteroidExplosions = new Positions();
+	final Positions shipExplosions = new Positions();
+	final Positions bossExplosions = new Positions();
+
+	/**
+	 * Empties all the position lists, to be filled again for a new tick.
+	 */
+	void clear() {
+		ships.clear();
+		enemyShips.clear();
+		bossShips.clear();
+		asteroids.clear();
+		bullets.clear();
+		enemyBullets.clear();
+		bossBullets.clear();
+		asteroidExplosions.clear();
+		shipExplosions.clear();
+		bossExplosions.clear();
+	}
+
+	/**
+	 * Returns the time at which the snapshot's tick was due, as given by {@link System#nanoTime()}.
+	 * @return the tick time
+	 */
+	public long getTickTime() {
+		return tickTime;
+	}
+
+	/**
+	 * Previous and current locations of a group of objects drawn with the same image.
+	 * Objects that teleport, such as on a respawn, have their previous location reset by
+	 * {@link GameObject#jumpTo(int, int)}, so they are drawn where they land instead of
+	 * sliding there. The backing arrays grow as needed and are never shrunk, so steady-state
+	 * snapshots allocate nothing.
+	 */
+	public static class Positions {
+		private int size;
+		private int[] previousX = new int[16];
+		private int[] previousY = new int[16];
+		private int[] x = new int[16];
+		private int[] y = new int[16];
+
+		void clear() {
+			size = 0;
+		}
+
+		/**
+		 * Adds a moving object.
+		 * @param object the object to add
+		 */
+		void add(GameObject object) {
+			add(object.getPreviousX(), object.getPreviousY(), object.x, object.y);
+		}
+
+		/**
+		 * Adds a still object, such as an explosion.
+		 * @param bounds the bounding rectangle of the object
+		 */
+		void add(Rectangle bounds) {
+			add(bounds.x, bounds.y, bounds.x, bounds.y);
+		}
+
+		/**
+		 * Adds an object by its previous and current location.
+		 */
+		void add(int previousX, int previousY, int x, int y) {
+			if(size == this.x.length){
+				int capacity = size * 2;
+				this.previousX = Arrays.copyOf(this.previousX, capacity);
+				this.previousY = Arrays.copyOf(this.previousY, capacity);
+				this.x = Arrays.copyOf(this.x, capacity);
+				this.y = Arrays.copyOf(this.y, capacity);
+			}
+			this.previousX[size] = previousX;
+			this.previousY[size] = previousY;
+			this.x[size] = x;
+			this.y[size] = y;
+			size++;
+		}
+
+		/**
+		 * Returns the number of objects.
+		 * @return the number of objects
+		 */
+		public int size() {
+			return size;
+		}
+
+		/**
+		 * Returns the x coordinate of an object, interpolated between the previous and the current tick.
+		 * @param i the index of the object
+		 * @param alpha fraction of a tick elapsed since the snapshot's tick, between 0 and 1
+		 * @return the interpolated x coordinate
+		 */
+		public int getX(int i, float alpha) {
+			return previousX[i] + Math.round((x[i] - previousX[i]) * alpha);
+		}
+
+		/**
+		 * Returns the y coordinate of an object, interpolated between the previous and the current tick.
+		 * @param i the index of the object
+		 * @param alpha fraction of a tick elapsed since the snapshot's tick, between 0 and 1
+		 * @return the interpolated y coordinate
+		 */
+		public int getY(int i, float alpha) {
+			return previousY[i] + Math.round((y[i] - previousY[i]) * alpha);
+		}
+	}
+}